@@ -0,0 +1,162 @@
+package net.silentchaos512.scalinghealth.capability;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.MobEntity;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.ICapabilityProvider;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+
+import javax.annotation.Nullable;
+
+/**
+ * Resolves capabilities of entities once and keeps them until the entity leaves the world, so hot
+ * paths don't have to go through {@link ICapabilityProvider#getCapability} every time. Only
+ * entities that are in a world are cached, since those are the ones that will fire
+ * {@link EntityLeaveWorldEvent}. Client and server entities are cached separately.
+ * <p>
+ * Missing capabilities resolve to shared immutable objects instead of a new throwaway instance.
+ */
+@Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
+public final class CapabilityCache {
+    public static final IDifficultyAffected NO_AFFECTED = new NoDifficultyAffected();
+    public static final IDifficultySource NO_SOURCE = new NoDifficultySource();
+
+    private static final int SLOT_AFFECTED = 0;
+    private static final int SLOT_SOURCE = 1;
+    private static final int SLOT_PLAYER_DATA = 2;
+    private static final int SLOT_COUNT = 3;
+
+    // Stored for capabilities that have no null object, so missing can be told apart from unresolved
+    private static final Object MISSING = new Object();
+
+    private static final Int2ObjectMap<Entry> SERVER = new Int2ObjectOpenHashMap<>();
+    private static final Int2ObjectMap<Entry> CLIENT = new Int2ObjectOpenHashMap<>();
+
+    private CapabilityCache() {throw new IllegalAccessError("Utility class");}
+
+    public static IDifficultyAffected affected(ICapabilityProvider provider) {
+        return get(provider, DifficultyAffectedCapability.INSTANCE, SLOT_AFFECTED, NO_AFFECTED);
+    }
+
+    public static IDifficultySource source(ICapabilityProvider provider) {
+        return get(provider, DifficultySourceCapability.INSTANCE, SLOT_SOURCE, NO_SOURCE);
+    }
+
+    @Nullable
+    public static IPlayerData playerData(ICapabilityProvider provider) {
+        return get(provider, PlayerDataCapability.INSTANCE, SLOT_PLAYER_DATA, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T get(ICapabilityProvider provider, Capability<T> capability, int slot, @Nullable T fallback) {
+        if (!(provider instanceof Entity) || !((Entity) provider).isAddedToWorld())
+            return provider.getCapability(capability).orElse(fallback);
+
+        Entity entity = (Entity) provider;
+        Int2ObjectMap<Entry> entries = entity.world.isRemote ? CLIENT : SERVER;
+        Entry entry = entries.get(entity.getEntityId());
+        if (entry == null || entry.entity != entity) {
+            entry = new Entry(entity);
+            entries.put(entity.getEntityId(), entry);
+        }
+
+        Object value = entry.values[slot];
+        if (value == null) {
+            T resolved = entity.getCapability(capability).orElse(fallback);
+            entry.values[slot] = resolved != null ? resolved : MISSING;
+            return resolved;
+        }
+        return value == MISSING ? null : (T) value;
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+        Entity entity = event.getEntity();
+        Int2ObjectMap<Entry> entries = event.getWorld().isRemote() ? CLIENT : SERVER;
+        Entry entry = entries.get(entity.getEntityId());
+        if (entry != null && entry.entity == entity)
+            entries.remove(entity.getEntityId());
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        // There is only ever one client world, everything in it is gone
+        if (event.getWorld().isRemote())
+            CLIENT.clear();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        SERVER.clear();
+    }
+
+    private static final class Entry {
+        private final Entity entity;
+        private final Object[] values = new Object[SLOT_COUNT];
+
+        private Entry(Entity entity) {
+            this.entity = entity;
+        }
+    }
+
+    private static final class NoDifficultyAffected implements IDifficultyAffected {
+        @Override
+        public float getDifficulty() {
+            return 0;
+        }
+
+        @Override
+        public void setDifficulty(MobEntity mob) {}
+
+        @Override
+        public void forceDifficulty(float diff) {}
+
+        @Override
+        public boolean isBlight() {
+            return false;
+        }
+
+        @Override
+        public void setIsBlight(boolean value) {}
+
+        @Override
+        public boolean isProcessed() {
+            // Nothing to process
+            return true;
+        }
+
+        @Override
+        public void setProcessed(boolean value) {}
+
+        @Override
+        public boolean isFromSpawner() {
+            return false;
+        }
+
+        @Override
+        public void setFromSpawner(boolean value) {}
+
+        @Override
+        public void tick(MobEntity entity) {}
+    }
+
+    private static final class NoDifficultySource implements IDifficultySource {
+        @Override
+        public float getDifficulty() {
+            return 0;
+        }
+
+        @Override
+        public void setExempt(boolean exempt) {}
+
+        @Override
+        public void setDifficulty(float value) {}
+    }
+}
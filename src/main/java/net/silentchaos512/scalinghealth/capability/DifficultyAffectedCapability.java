@@ -20,16 +20,24 @@ import javax.annotation.Nullable;
 public class DifficultyAffectedCapability implements IDifficultyAffected, ICapabilitySerializable<CompoundNBT> {
     @CapabilityInject(IDifficultyAffected.class)
     public static Capability<IDifficultyAffected> INSTANCE = null;
-    public static ResourceLocation NAME = ScalingHealth.getId("difficulty_affected");
+    public static ResourceLocation NAME = new ResourceLocation(ScalingHealth.MOD_ID, "difficulty_affected");
 
     private static final String NBT_BLIGHT = "Blight";
     private static final String NBT_DIFFICULTY = "Difficulty";
+    private static final String NBT_PROCESSED = "Processed";
+    private static final String NBT_SPAWNER = "Spawner";
+    private static final String NBT_VERSION = "Version";
+
+    // Version 0 (no version tag) only saved blight and difficulty. Version 1 adds processed,
+    // version 2 adds spawner.
+    private static final int VERSION = 2;
 
     private final LazyOptional<IDifficultyAffected> holder = LazyOptional.of(() -> this);
 
     private float difficulty;
     private boolean blight;
     private boolean processed;
+    private boolean fromSpawner;
 
     @Override
     public float getDifficulty() {
@@ -56,11 +64,26 @@ public class DifficultyAffectedCapability implements IDifficultyAffected, ICapab
         blight = value;
     }
 
+    @Override
+    public boolean isProcessed() {
+        return processed;
+    }
+
     @Override
     public void setProcessed(boolean value) {
         this.processed = value;
     }
 
+    @Override
+    public boolean isFromSpawner() {
+        return fromSpawner;
+    }
+
+    @Override
+    public void setFromSpawner(boolean value) {
+        this.fromSpawner = value;
+    }
+
     @Override
     public void tick(MobEntity entity) {
         if (!processed && entity.isAlive() && entity.ticksExisted > 2) {
@@ -85,6 +108,9 @@ public class DifficultyAffectedCapability implements IDifficultyAffected, ICapab
         CompoundNBT nbt = new CompoundNBT();
         nbt.putBoolean(NBT_BLIGHT, blight);
         nbt.putFloat(NBT_DIFFICULTY, difficulty);
+        nbt.putBoolean(NBT_PROCESSED, processed);
+        nbt.putBoolean(NBT_SPAWNER, fromSpawner);
+        nbt.putInt(NBT_VERSION, VERSION);
         return nbt;
     }
 
@@ -92,6 +118,14 @@ public class DifficultyAffectedCapability implements IDifficultyAffected, ICapab
     public void deserializeNBT(CompoundNBT nbt) {
         blight = nbt.getBoolean(NBT_BLIGHT);
         difficulty = nbt.getFloat(NBT_DIFFICULTY);
+        fromSpawner = nbt.getInt(NBT_VERSION) >= 2 && nbt.getBoolean(NBT_SPAWNER);
+        if (nbt.getInt(NBT_VERSION) >= 1) {
+            processed = nbt.getBoolean(NBT_PROCESSED);
+        } else {
+            // Older saves did not track this. A mob with a difficulty was processed, and its
+            // attribute modifiers were saved with it, so don't scale it a second time.
+            processed = blight || difficulty != 0;
+        }
     }
 
     public static boolean canAttachTo(ICapabilityProvider entity) {
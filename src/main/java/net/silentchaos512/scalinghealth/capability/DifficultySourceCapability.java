@@ -34,6 +34,10 @@ public class DifficultySourceCapability implements IDifficultySource, ICapabilit
         return Optional.ofNullable(overworldCap);
     }
 
+    public static float getOverworldDifficulty() {
+        return overworldCap != null ? overworldCap.getDifficulty() : 0;
+    }
+
     public static void setOverworldCap(IDifficultySource source){
         overworldCap = source;
     }
@@ -14,8 +14,14 @@ public interface IDifficultyAffected {
 
     void setIsBlight(boolean value);
 
+    boolean isProcessed();
+
     void setProcessed(boolean value);
 
+    boolean isFromSpawner();
+
+    void setFromSpawner(boolean value);
+
     void tick(MobEntity entity);
 
     default float affectiveDifficulty() {
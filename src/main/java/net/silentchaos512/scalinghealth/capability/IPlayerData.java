@@ -25,6 +25,16 @@ public interface IPlayerData {
 
     void updateStats(PlayerEntity player);
 
+    /**
+     * Ticks left until the next bonus regen heal, or -1 if the timer has not been started.
+     */
+    int getRegenTimer();
+
+    void setRegenTimer(int ticks);
+
+    /**
+     * Called once per second for server side players.
+     */
     void tick(PlayerEntity player);
 
     default void addHeartCrystals(PlayerEntity player, int amount) {
@@ -36,6 +36,7 @@ public class PlayerDataCapability implements IPlayerData, ICapabilitySerializabl
 
     private int heartCrystals;
     private int powerCrystals;
+    private int regenTimer = -1;
 
     @Override
     public int getBonusHearts(PlayerEntity player) {
@@ -70,9 +71,19 @@ public class PlayerDataCapability implements IPlayerData, ICapabilitySerializabl
         ModifierHandler.addAttackDamage(player, getAttackDamageModifier(), AttributeModifier.Operation.ADDITION);
     }
 
+    @Override
+    public int getRegenTimer() {
+        return regenTimer;
+    }
+
+    @Override
+    public void setRegenTimer(int ticks) {
+        regenTimer = ticks;
+    }
+
     @Override
     public void tick(PlayerEntity player) {
-        if(player.world.getGameTime() % 20 == 0 && !player.world.isRemote){
+        if(!player.world.isRemote){
             checkPlayerIdle(player);
 
             if(player instanceof ServerPlayerEntity)
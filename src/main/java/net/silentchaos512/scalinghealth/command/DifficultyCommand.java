@@ -13,6 +13,7 @@ import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.util.text.*;
 import net.silentchaos512.scalinghealth.capability.DifficultySourceCapability;
 import net.silentchaos512.scalinghealth.capability.IDifficultySource;
+import net.silentchaos512.scalinghealth.utils.MobProcessingQueue;
 import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
 
 public final class DifficultyCommand {
@@ -36,6 +37,11 @@ public final class DifficultyCommand {
                                         DifficultyCommand::runGetServerDifficulty
                                 )
                         )
+                        .then(Commands.literal("queue")
+                                .executes(
+                                        DifficultyCommand::runGetQueue
+                                )
+                        )
                         .executes(context -> {
                             // No target, use sender
                             return getDifficultySingle(context, context.getSource().asPlayer());
@@ -127,6 +133,15 @@ public final class DifficultyCommand {
         return 1;
     }
 
+    // Returns the queue depth, so it can be read with /execute store
+    private static int runGetQueue(CommandContext<CommandSource> context) {
+        int depth = MobProcessingQueue.getQueueDepth();
+        IFormattableTextComponent text = text("queue", depth, MobProcessingQueue.getWaitingCount())
+                .mergeStyle(TextFormatting.YELLOW);
+        context.getSource().sendFeedback(text, false);
+        return depth;
+    }
+
     private static int runSetDifficulty(CommandContext<CommandSource> context) throws CommandSyntaxException {
         float amount = FloatArgumentType.getFloat(context, "amount");
         for (ServerPlayerEntity player : EntityArgument.getPlayers(context, "targets")) {
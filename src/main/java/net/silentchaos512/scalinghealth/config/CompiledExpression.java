@@ -0,0 +1,507 @@
+package net.silentchaos512.scalinghealth.config;
+
+import com.google.common.collect.ImmutableMap;
+import com.udojava.evalex.Expression;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A mechanics formula, parsed once into a tree of double-precision nodes. Variables are requested
+ * by {@link EvalVars#ordinal()} only when a node actually needs them, so evaluating does not
+ * parse anything, and unused variables are never computed. Parts of the formula that don't depend
+ * on a variable are folded into constants. Only {@code ROUND} on a variable value allocates, since
+ * it rounds through {@link BigDecimal} to get the same result as EvalEx.
+ * <p>
+ * Division and remainder by zero throw {@link ArithmeticException}, the same as EvalEx, instead of
+ * producing Infinity or NaN.
+ * <p>
+ * The parser understands the EvalEx syntax used by formulas: numbers, the {@link EvalVars}
+ * variables, {@code PI}, {@code e}, {@code TRUE}, {@code FALSE}, the arithmetic, comparison and
+ * boolean operators with EvalEx precedence, and the functions {@code IF}, {@code MIN},
+ * {@code MAX}, {@code ABS}, {@code ROUND}, {@code FLOOR}, {@code CEILING}, {@code SQRT},
+ * {@code LOG}, {@code LOG10} and {@code NOT}. Anything else falls back to evaluating with EvalEx,
+ * which still works, just slower.
+ */
+public final class CompiledExpression {
+    private final String source;
+    @Nullable private final Node root;
+    @Nullable private final Expression fallback;
+    private final int variableMask;
+
+    private CompiledExpression(String source, @Nullable Node root, @Nullable Expression fallback, int variableMask) {
+        this.source = source;
+        this.root = root;
+        this.fallback = fallback;
+        this.variableMask = variableMask;
+    }
+
+    public static CompiledExpression compile(String source) {
+        try {
+            Parser parser = new Parser(source);
+            Node root = parser.parse();
+            return new CompiledExpression(source, root, null, parser.variableMask);
+        } catch (ParseException ex) {
+            ScalingHealth.LOGGER.debug("Evaluating expression '{}' with EvalEx: {}", source, ex.getMessage());
+            Expression expression = new Expression(source);
+            return new CompiledExpression(source, null, expression, usedVariables(expression));
+        }
+    }
+
+    private static int usedVariables(Expression expression) {
+        try {
+            int mask = 0;
+            for (String name : expression.getUsedVariables())
+                for (EvalVars var : EvalVars.values())
+                    if (var.varName().equalsIgnoreCase(name))
+                        mask |= 1 << var.ordinal();
+            return mask;
+        } catch (Exception ex) {
+            // Let EvalEx report the problem when evaluating
+            return ~0;
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isCompiled() {
+        return root != null;
+    }
+
+    /**
+     * Check if the expression references the variable. Only referenced variables are ever
+     * requested from {@link Variables}.
+     */
+    public boolean usesVariable(EvalVars var) {
+        return (variableMask & (1 << var.ordinal())) != 0;
+    }
+
+    /**
+     * Evaluate the expression, requesting variable values as they are needed.
+     */
+    public double eval(Variables variables) {
+        if (root != null)
+            return root.eval(variables);
+
+        //noinspection ConstantConditions
+        synchronized (fallback) {
+            for (EvalVars var : EvalVars.values())
+                if (usesVariable(var))
+                    fallback.setVariable(var.varName(), BigDecimal.valueOf(variables.get(var.ordinal())));
+            return fallback.eval().doubleValue();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static final class ParseException extends Exception {
+        private ParseException(String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Variables {
+        /**
+         * Get the value of a variable.
+         *
+         * @param slot The {@link EvalVars#ordinal()} of the variable
+         */
+        double get(int slot);
+    }
+
+    //region Nodes
+
+    private interface Node {
+        double eval(Variables vars);
+    }
+
+    private static final class Constant implements Node {
+        private final double value;
+
+        private Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(Variables vars) {
+            return value;
+        }
+    }
+
+    private static final class Variable implements Node {
+        private final int slot;
+
+        private Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public double eval(Variables vars) {
+            return vars.get(slot);
+        }
+    }
+
+    private static final class Unary implements Node {
+        private final DoubleUnaryOperator op;
+        private final Node operand;
+
+        private Unary(DoubleUnaryOperator op, Node operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        public double eval(Variables vars) {
+            return op.applyAsDouble(operand.eval(vars));
+        }
+    }
+
+    private static final class Binary implements Node {
+        private final DoubleBinaryOperator op;
+        private final Node left;
+        private final Node right;
+
+        private Binary(DoubleBinaryOperator op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double eval(Variables vars) {
+            return op.applyAsDouble(left.eval(vars), right.eval(vars));
+        }
+    }
+
+    private static final class Condition implements Node {
+        private final Node condition;
+        private final Node ifTrue;
+        private final Node ifFalse;
+
+        private Condition(Node condition, Node ifTrue, Node ifFalse) {
+            this.condition = condition;
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        @Override
+        public double eval(Variables vars) {
+            return condition.eval(vars) != 0 ? ifTrue.eval(vars) : ifFalse.eval(vars);
+        }
+    }
+
+    private static final class Reduce implements Node {
+        private final DoubleBinaryOperator op;
+        private final Node[] operands;
+
+        private Reduce(DoubleBinaryOperator op, Node[] operands) {
+            this.op = op;
+            this.operands = operands;
+        }
+
+        @Override
+        public double eval(Variables vars) {
+            double result = operands[0].eval(vars);
+            for (int i = 1; i < operands.length; ++i)
+                result = op.applyAsDouble(result, operands[i].eval(vars));
+            return result;
+        }
+    }
+
+    private static boolean allConstant(Node... nodes) {
+        for (Node node : nodes)
+            if (!(node instanceof Constant))
+                return false;
+        return true;
+    }
+
+    // Nodes are pure, so one with only constant operands can be replaced by its value
+    private static Node fold(Node node, Node... operands) {
+        if (!allConstant(operands))
+            return node;
+        try {
+            return new Constant(node.eval(null));
+        } catch (ArithmeticException ex) {
+            // Leave it to fail when evaluated, like EvalEx does
+            return node;
+        }
+    }
+
+    private static double bool(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    // EvalEx divides BigDecimals, which fails instead of giving Infinity or NaN
+    private static void checkDivisor(double a, double b) {
+        if (b == 0)
+            throw new ArithmeticException(a == 0 ? "Division undefined" : "Division by zero");
+    }
+
+    private static double divide(double a, double b) {
+        checkDivisor(a, b);
+        return a / b;
+    }
+
+    private static double remainder(double a, double b) {
+        checkDivisor(a, b);
+        return a % b;
+    }
+
+    // Rounds the decimal value of x, like EvalEx does. Scaling the double by a power of ten first
+    // would round the binary approximation instead (2.675 * 100 is 267.49999999999997).
+    private static double round(double x, double precision) {
+        return BigDecimal.valueOf(x).setScale((int) precision, RoundingMode.HALF_EVEN).doubleValue();
+    }
+
+    //endregion
+
+    //region Parser
+
+    private static final class Operator {
+        private final int precedence;
+        private final boolean leftAssoc;
+        private final DoubleBinaryOperator op;
+
+        private Operator(int precedence, boolean leftAssoc, DoubleBinaryOperator op) {
+            this.precedence = precedence;
+            this.leftAssoc = leftAssoc;
+            this.op = op;
+        }
+    }
+
+    private static final Map<String, Operator> OPERATORS = ImmutableMap.<String, Operator>builder()
+            .put("+", new Operator(20, true, Double::sum))
+            .put("-", new Operator(20, true, (a, b) -> a - b))
+            .put("*", new Operator(30, true, (a, b) -> a * b))
+            .put("/", new Operator(30, true, CompiledExpression::divide))
+            .put("%", new Operator(30, true, CompiledExpression::remainder))
+            .put("^", new Operator(40, false, Math::pow))
+            .put("<", new Operator(10, true, (a, b) -> bool(a < b)))
+            .put("<=", new Operator(10, true, (a, b) -> bool(a <= b)))
+            .put(">", new Operator(10, true, (a, b) -> bool(a > b)))
+            .put(">=", new Operator(10, true, (a, b) -> bool(a >= b)))
+            .put("=", new Operator(7, true, (a, b) -> bool(a == b)))
+            .put("==", new Operator(7, true, (a, b) -> bool(a == b)))
+            .put("!=", new Operator(7, true, (a, b) -> bool(a != b)))
+            .put("<>", new Operator(7, true, (a, b) -> bool(a != b)))
+            .put("&&", new Operator(4, true, (a, b) -> bool(a != 0 && b != 0)))
+            .put("||", new Operator(2, true, (a, b) -> bool(a != 0 || b != 0)))
+            .build();
+
+    private static final class Parser {
+        private static final String OPERATOR_CHARS = "+-*/%^<>=!&|";
+
+        private final String source;
+        private final List<String> tokens = new ArrayList<>();
+        private int index;
+        private int variableMask;
+
+        private Parser(String source) {
+            this.source = source;
+        }
+
+        private Node parse() throws ParseException {
+            tokenize();
+            Node node = parseExpression(0);
+            if (index < tokens.size())
+                throw new ParseException("Unexpected '" + tokens.get(index) + "'");
+            return node;
+        }
+
+        private void tokenize() throws ParseException {
+            int i = 0;
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c)) {
+                    ++i;
+                    continue;
+                } else if (Character.isDigit(c) || c == '.') {
+                    while (i < source.length() && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.'))
+                        ++i;
+                    if (i < source.length() && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+                        ++i;
+                        if (i < source.length() && (source.charAt(i) == '+' || source.charAt(i) == '-'))
+                            ++i;
+                        while (i < source.length() && Character.isDigit(source.charAt(i)))
+                            ++i;
+                    }
+                } else if (Character.isLetter(c) || c == '_') {
+                    while (i < source.length() && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_'))
+                        ++i;
+                } else if (c == '(' || c == ')' || c == ',') {
+                    ++i;
+                } else if (OPERATOR_CHARS.indexOf(c) >= 0) {
+                    // Longest known operator wins
+                    ++i;
+                    if (i < source.length() && OPERATORS.containsKey(source.substring(start, i + 1)))
+                        ++i;
+                } else {
+                    throw new ParseException("Unsupported character '" + c + "'");
+                }
+                tokens.add(source.substring(start, i));
+            }
+        }
+
+        @Nullable
+        private String peek() {
+            return index < tokens.size() ? tokens.get(index) : null;
+        }
+
+        private String next() throws ParseException {
+            if (index >= tokens.size())
+                throw new ParseException("Unexpected end of expression");
+            return tokens.get(index++);
+        }
+
+        private void expect(String token) throws ParseException {
+            String next = next();
+            if (!next.equals(token))
+                throw new ParseException("Expected '" + token + "' but found '" + next + "'");
+        }
+
+        private Node parseExpression(int minPrecedence) throws ParseException {
+            Node left = parseUnary();
+            while (true) {
+                String token = peek();
+                Operator op = token != null ? OPERATORS.get(token) : null;
+                if (op == null || op.precedence < minPrecedence)
+                    return left;
+                ++index;
+                Node right = parseExpression(op.leftAssoc ? op.precedence + 1 : op.precedence);
+                left = fold(new Binary(op.op, left, right), left, right);
+            }
+        }
+
+        // Like EvalEx, unary operators bind tighter than any binary operator (-2^2 == 4)
+        private Node parseUnary() throws ParseException {
+            String token = peek();
+            if ("-".equals(token)) {
+                ++index;
+                Node operand = parseUnary();
+                return fold(new Unary(a -> -a, operand), operand);
+            }
+            if ("+".equals(token)) {
+                ++index;
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() throws ParseException {
+            String token = next();
+            char c = token.charAt(0);
+
+            if (Character.isDigit(c) || c == '.') {
+                try {
+                    return new Constant(Double.parseDouble(token));
+                } catch (NumberFormatException ex) {
+                    throw new ParseException("Bad number '" + token + "'");
+                }
+            }
+
+            if (token.equals("(")) {
+                Node node = parseExpression(0);
+                expect(")");
+                return node;
+            }
+
+            if (Character.isLetter(c) || c == '_') {
+                if ("(".equals(peek())) {
+                    ++index;
+                    return function(token, parseArguments());
+                }
+                return identifier(token);
+            }
+
+            throw new ParseException("Unexpected '" + token + "'");
+        }
+
+        private Node[] parseArguments() throws ParseException {
+            List<Node> args = new ArrayList<>();
+            if (")".equals(peek())) {
+                ++index;
+                return new Node[0];
+            }
+            while (true) {
+                args.add(parseExpression(0));
+                String token = next();
+                if (token.equals(")"))
+                    return args.toArray(new Node[0]);
+                if (!token.equals(","))
+                    throw new ParseException("Expected ',' or ')' but found '" + token + "'");
+            }
+        }
+
+        private Node identifier(String name) throws ParseException {
+            for (EvalVars var : EvalVars.values())
+                if (var.varName().equalsIgnoreCase(name)) {
+                    variableMask |= 1 << var.ordinal();
+                    return new Variable(var.ordinal());
+                }
+
+            switch (name.toUpperCase(Locale.ROOT)) {
+                case "PI": return new Constant(Math.PI);
+                case "E": return new Constant(Math.E);
+                case "TRUE": return new Constant(1);
+                case "FALSE": return new Constant(0);
+                default: throw new ParseException("Unknown variable '" + name + "'");
+            }
+        }
+
+        private Node function(String name, Node[] args) throws ParseException {
+            switch (name.toUpperCase(Locale.ROOT)) {
+                case "IF":
+                    checkArgs(name, args, 3);
+                    if (args[0] instanceof Constant)
+                        return ((Constant) args[0]).value != 0 ? args[1] : args[2];
+                    return new Condition(args[0], args[1], args[2]);
+                case "MIN":
+                    if (args.length == 0)
+                        throw new ParseException("MIN requires at least one parameter");
+                    return fold(new Reduce(Math::min, args), args);
+                case "MAX":
+                    if (args.length == 0)
+                        throw new ParseException("MAX requires at least one parameter");
+                    return fold(new Reduce(Math::max, args), args);
+                case "ROUND":
+                    checkArgs(name, args, 2);
+                    return fold(new Binary(CompiledExpression::round, args[0], args[1]), args);
+                case "ABS": return unaryFunction(name, args, Math::abs);
+                case "FLOOR": return unaryFunction(name, args, Math::floor);
+                case "CEILING": return unaryFunction(name, args, Math::ceil);
+                case "SQRT": return unaryFunction(name, args, Math::sqrt);
+                case "LOG": return unaryFunction(name, args, Math::log);
+                case "LOG10": return unaryFunction(name, args, Math::log10);
+                case "NOT": return unaryFunction(name, args, a -> bool(a == 0));
+                default: throw new ParseException("Unknown function '" + name + "'");
+            }
+        }
+
+        private Node unaryFunction(String name, Node[] args, DoubleUnaryOperator op) throws ParseException {
+            checkArgs(name, args, 1);
+            return fold(new Unary(op, args[0]), args);
+        }
+
+        private void checkArgs(String name, Node[] args, int count) throws ParseException {
+            if (args.length != count)
+                throw new ParseException(name + " takes " + count + " parameters, got " + args.length);
+        }
+    }
+
+    //endregion
+}
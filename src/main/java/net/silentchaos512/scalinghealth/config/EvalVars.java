@@ -7,7 +7,8 @@ import net.minecraft.world.World;
 import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
 
 import javax.annotation.Nullable;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
 
 public enum EvalVars {
     HEALTH("health", ctx -> ctx.player != null ? ctx.player.getHealth() : 20),
@@ -17,13 +18,17 @@ public enum EvalVars {
     MAX_DIFFICULTY("maxDifficulty", ctx -> SHDifficulty.maxValue()),
     AREA_DIFFICULTY("areaDifficulty", ctx -> SHDifficulty.areaDifficulty(ctx.world, ctx.pos, false)),
     AREA_PLAYER_COUNT("areaPlayerCount", ctx ->
-        SHDifficulty.playersInRange(ctx.world, ctx.pos, SHDifficulty.groupSearchRadius()).count()
+        SHDifficulty.playerCountInRange(ctx.world, ctx.pos, SHDifficulty.groupSearchRadius())
     );
 
+    private static final EvalVars[] VALUES = values();
+    // Evaluating a variable may evaluate another expression, so each nesting level gets a context
+    private static final ThreadLocal<ContextStack> CONTEXTS = ThreadLocal.withInitial(ContextStack::new);
+
     private final String name;
-    private final Function<Context, ? extends Number> value;
+    private final ToDoubleFunction<Context> value;
 
-    EvalVars(String name, Function<Context, ? extends Number> value) {
+    EvalVars(String name, ToDoubleFunction<Context> value) {
         this.name = name;
         this.value = value;
     }
@@ -32,16 +37,18 @@ public enum EvalVars {
         return name;
     }
 
-    public static double apply(PlayerEntity player, Expression expression) {
+    public static double apply(PlayerEntity player, CompiledExpression expression) {
         return apply(player.world, player.getPosition(), player, expression);
     }
 
-    public static double apply(World world, BlockPos pos, @Nullable PlayerEntity player, Expression expression) {
-        Context context = new Context(world, pos, player);
-        for (EvalVars variable : values()) {
-            expression.setVariable(variable.varName(), variable.value.apply(context).toString());
+    public static double apply(World world, BlockPos pos, @Nullable PlayerEntity player, CompiledExpression expression) {
+        ContextStack stack = CONTEXTS.get();
+        Context context = stack.push(world, pos, player);
+        try {
+            return expression.eval(context);
+        } finally {
+            stack.pop();
         }
-        return expression.eval().doubleValue();
     }
 
     public static Expression dummyPopulate(Expression expression) {
@@ -50,15 +57,46 @@ public enum EvalVars {
         return expression;
     }
 
-    private static final class Context {
-        private final World world;
-        private final BlockPos pos;
-        private final PlayerEntity player;
+    // Variables are computed the first time the expression asks for them, then remembered
+    private static final class Context implements CompiledExpression.Variables {
+        private final double[] values = new double[VALUES.length];
+        private int computed;
+        private World world;
+        private BlockPos pos;
+        @Nullable private PlayerEntity player;
+
+        @Override
+        public double get(int slot) {
+            if ((computed & (1 << slot)) == 0) {
+                values[slot] = VALUES[slot].value.applyAsDouble(this);
+                computed |= 1 << slot;
+            }
+            return values[slot];
+        }
+    }
+
+    private static final class ContextStack {
+        private Context[] contexts = new Context[0];
+        private int depth;
+
+        private Context push(World world, BlockPos pos, @Nullable PlayerEntity player) {
+            if (depth == contexts.length) {
+                contexts = Arrays.copyOf(contexts, depth + 1);
+                contexts[depth] = new Context();
+            }
+            Context context = contexts[depth++];
+            context.world = world;
+            context.pos = pos;
+            context.player = player;
+            context.computed = 0;
+            return context;
+        }
 
-        private Context(World world, BlockPos pos, @Nullable PlayerEntity player) {
-            this.world = world;
-            this.pos = pos;
-            this.player = player;
+        private void pop() {
+            Context context = contexts[--depth];
+            context.world = null;
+            context.pos = null;
+            context.player = null;
         }
     }
 }
@@ -242,6 +242,11 @@ public class SHConfig {
         public final BooleanValue enableDifficulty;
         public final BooleanValue enableBlights;
 
+        public final BooleanValue asyncAreaDifficulty;
+        public final IntValue asyncAreaDifficultyMaxAge;
+        public final IntValue asyncAreaDifficultyRadius;
+        public final IntValue mobProcessingBudget;
+
         public Server(Builder builder) {
             builder.comment("All SH features can be disabled here. False to disable.")
                     .push("features");
@@ -298,6 +303,27 @@ public class SHConfig {
                     .comment("Enable blights. If disabled, no blights will spawn.")
                     .define("enableBlights", true);
 
+            builder.pop().comment("Performance tuning. The defaults match the normal behavior of the mod.")
+                    .push("performance");
+
+            asyncAreaDifficulty = builder
+                    .comment("Compute area difficulty around players on a background thread, instead of on the server thread when it is needed.",
+                            "Values are computed once per chunk column, at the height of the nearest player, so they may differ slightly from the exact value at a position.")
+                    .define("asyncAreaDifficulty", false);
+
+            asyncAreaDifficultyMaxAge = builder
+                    .comment("How old (in ticks) background area difficulty values may be before they are computed on the server thread again.")
+                    .defineInRange("asyncAreaDifficultyMaxAge", 20, 1, 1200);
+
+            asyncAreaDifficultyRadius = builder
+                    .comment("Radius (in chunks) around each player for which area difficulty is computed in the background.")
+                    .defineInRange("asyncAreaDifficultyRadius", 8, 1, 32);
+
+            mobProcessingBudget = builder
+                    .comment("Time (in microseconds) that may be spent each tick applying difficulty to newly spawned mobs.",
+                            "Mobs that do not fit in the budget are processed on the following ticks. Set to 0 for no limit.")
+                    .defineInRange("mobProcessingBudget", 0, 0, 50000);
+
             builder.pop().comment(
                     "Debug settings are intended for tuning configs or diagnosing issues.",
                     "They may decrease performance and should be disabled for normal play."
@@ -24,6 +24,7 @@ public class EnglishLocalization extends LanguageProvider {
         addCommand("playerName.inDimension", "(in dimension %s)");
         addCommand("difficulty.area", "Area Difficulty: %s");
         addCommand("difficulty.player", "Player Difficulty: %s");
+        addCommand("difficulty.queue", "Mobs waiting for difficulty: %s (%s not ready yet)");
         addCommand("difficulty.server", "Server Difficulty: %s");
         addCommand("health.actual", "Actual Health: %s");
         addCommand("health.heartCrystals", "Heart Crystals: %s");
@@ -17,5 +17,6 @@ public class SHEntityTags extends EntityTypeTagsProvider {
       this.getOrCreateBuilder(EntityTags.BLIGHT_EXEMPT).add(BAT, CAT, CHICKEN, COD, COW, DONKEY, FOX, HORSE, MOOSHROOM, MULE,
               OCELOT, PARROT, PIG, RABBIT, SALMON, SHEEP, TROPICAL_FISH, TURTLE, VILLAGER, WANDERING_TRADER);
       this.getOrCreateBuilder(EntityTags.DIFFICULTY_EXEMPT).add(VILLAGER, WANDERING_TRADER);
+      this.getOrCreateBuilder(EntityTags.BOSSES).add(ENDER_DRAGON, WITHER);
    }
 }
@@ -26,8 +26,8 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.util.Util;
 import net.minecraft.util.text.*;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.entity.living.LivingDeathEvent;
-import net.minecraftforge.event.entity.living.LivingEvent.LivingUpdateEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -37,11 +37,14 @@ import net.silentchaos512.scalinghealth.ScalingHealth;
 import net.silentchaos512.scalinghealth.network.ClientBlightMessage;
 import net.silentchaos512.scalinghealth.network.Network;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
+import net.silentchaos512.scalinghealth.utils.TickScheduler;
 import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
 import net.silentchaos512.scalinghealth.utils.config.SHMobs;
 
 @Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
 public final class BlightHandler {
+    private static final int EFFECT_REFRESH_TICKS = 1000;
+
     private BlightHandler() {}
 
     public static void applyBlightPotionEffects(MobEntity entity) {
@@ -136,11 +139,17 @@ public final class BlightHandler {
         }
     }
 
+    /**
+     * Reapply blight effects every {@value #EFFECT_REFRESH_TICKS} ticks while the blight is loaded.
+     */
+    public static void startEffectRefresh(MobEntity blight) {
+        TickScheduler.schedule(blight, EFFECT_REFRESH_TICKS, EFFECT_REFRESH_TICKS, BlightHandler::applyBlightPotionEffects);
+    }
+
     @SubscribeEvent
-    public static void onBlightUpdate(LivingUpdateEvent event) {
-        LivingEntity blight = event.getEntityLiving();
-        if (!blight.world.isRemote && blight instanceof MobEntity && SHMobs.isBlight((MobEntity) blight) && blight.world.getGameTime() % 1000 == 0) {
-            applyBlightPotionEffects((MobEntity) blight);
-        }
+    public static void onBlightJoinWorld(EntityJoinWorldEvent event) {
+        // Loaded blights, new ones are started when they become blights
+        if (!event.getWorld().isRemote() && event.getEntity() instanceof MobEntity && SHMobs.isBlight((MobEntity) event.getEntity()))
+            startEffectRefresh((MobEntity) event.getEntity());
     }
 }
@@ -46,13 +46,8 @@ import net.silentchaos512.scalinghealth.utils.config.SHMobs;
 import net.silentchaos512.scalinghealth.utils.config.SHPlayers;
 import net.silentchaos512.utils.MathUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
-
 @Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
 public final class CommonEvents {
-   public static List<UUID> spawnerSpawns = new ArrayList<>();
    private static boolean changedLevelThisTick = false;
 
    @SubscribeEvent
@@ -70,7 +65,7 @@ public final class CommonEvents {
    @SubscribeEvent
    public static void onSpawn(LivingSpawnEvent.CheckSpawn event){
       if(!(event.getEntityLiving() instanceof MobEntity)) return;
-      if(event.getSpawnReason() == SpawnReason.SPAWNER) spawnerSpawns.add(event.getEntityLiving().getUniqueID());
+      if(event.getSpawnReason() == SpawnReason.SPAWNER) SHDifficulty.affected(event.getEntityLiving()).setFromSpawner(true);
    }
 
    @SubscribeEvent(priority = EventPriority.HIGHEST)
@@ -98,7 +93,6 @@ public final class CommonEvents {
       PlayerEntity player = event.player;
 
       if (player.world.isRemote) return;
-      SHPlayers.getPlayerData(player).tick(player);
 
       if (changedLevelThisTick) {
          changedLevelThisTick = false;
@@ -18,8 +18,10 @@
 
 package net.silentchaos512.scalinghealth.event;
 
-import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.ai.attributes.Attributes;
 import net.minecraft.entity.ai.attributes.ModifiableAttributeInstance;
@@ -27,11 +29,14 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.IStringSerializable;
 import net.minecraftforge.event.TickEvent;
-import net.minecraftforge.event.entity.living.LivingAttackEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.entity.living.LivingHurtEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.silentchaos512.scalinghealth.ScalingHealth;
+import net.silentchaos512.scalinghealth.capability.IDifficultyAffected;
+import net.silentchaos512.scalinghealth.capability.IDifficultySource;
 import net.silentchaos512.scalinghealth.config.SHConfig;
 import net.silentchaos512.scalinghealth.resources.mechanics.DamageScalingMechanics;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
@@ -42,6 +47,7 @@ import net.silentchaos512.scalinghealth.utils.config.SHPlayers;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -50,35 +56,37 @@ import java.util.stream.Collectors;
 public final class DamageScaling {
     private static final Marker MARKER = MarkerManager.getMarker("DamageScaling");
 
-    private static final Set<UUID> ENTITY_ATTACKED_THIS_TICK = new HashSet<>();
+    private static final Int2ObjectMap<EffectScale> EFFECT_SCALES = new Int2ObjectOpenHashMap<>();
+    private static final Map<DamageSource, SourceScale> SOURCE_SCALES_THIS_TICK = new Reference2ObjectOpenHashMap<>();
 
+    // Scaling happens in LivingHurtEvent, after vanilla has applied invulnerability and hurt
+    // resistance, so the damage only has to go through the pipeline once.
     @SubscribeEvent(priority = EventPriority.HIGHEST)
-    public static void onEntityHurt(LivingAttackEvent event) {
-        if(!EnabledFeatures.mobDamageScalingEnabled() && !EnabledFeatures.playerDamageScalingEnabled()) return;
+    public static void onEntityHurt(LivingHurtEvent event) {
         LivingEntity entity = event.getEntityLiving();
         if (entity.world.isRemote) return;
-        // Entity invulnerable?
-        if (entity.isInvulnerableTo(event.getSource()) || entity.hurtResistantTime > entity.maxHurtResistantTime / 2)
-            return;
-
-        // Check entity has already been processed from original event, or is not allowed to be affected
-        if (ENTITY_ATTACKED_THIS_TICK.contains(entity.getUniqueID()) || !EntityGroup.from(entity).isAffectedByDamageScaling())
+        // Only scale fresh hits. Hits during hurt resistance only deal the damage above the last
+        // hit, which has already been scaled.
+        if (entity.hurtResistantTime != entity.maxHurtResistantTime || event.getAmount() != entity.lastDamage)
             return;
 
         DamageSource source = event.getSource();
         if (source == null) return;
 
-        // Get scaling factor from map, if it exists. Otherwise, use the generic scale.
-        float scale = SHMechanicListener.getDamageScalingMechanics().scales
-                .stream()
-                .filter(p -> p.getFirst().contains(source.getDamageType()))
-                .map(Pair::getSecond)
-                .reduce((s1, s2) -> s1 * s2)
-                .orElseGet(() -> SHMechanicListener.getDamageScalingMechanics().genericScale)
-                .floatValue();
+        SourceScale sourceScale = getSourceScale(source);
+        float scale = sourceScale.scale;
+        if (!sourceScale.enabled || scale == 0) return;
+
+        // Only entities that will be scaled get an EffectScale
+        if (!sourceScale.affects(EntityGroup.from(entity))) return;
+
+        // Check entity has already been processed this tick
+        EffectScale effectScale = getEffectScale(entity);
+        long gameTime = entity.world.getGameTime();
+        if (effectScale.lastScaledTime == gameTime) return;
 
         // Get the amount of the damage to affect. Can be many times the base value.
-        final float affectedAmount = (float) getEffectScale(entity);
+        final float affectedAmount = (float) effectScale.get(entity, sourceScale.mechanics);
 
         // Calculate damage to add to the original.
         final float original = event.getAmount();
@@ -87,19 +95,40 @@ public final class DamageScaling {
         if (change > 0.0001f) {
             final float newAmount = makeSane(event.getAmount() + change);
 
-            event.setCanceled(true);
-            ENTITY_ATTACKED_THIS_TICK.add(entity.getUniqueID());
-            entity.attackEntityFrom(event.getSource(), newAmount);
+            effectScale.lastScaledTime = gameTime;
+            event.setAmount(newAmount);
+            // Later hits during hurt resistance are compared against the scaled damage, the same
+            // as if the entity had been attacked with it in the first place
+            entity.lastDamage = newAmount;
 
-            if (SHConfig.SERVER.debugLogScaledDamage.get()) {
+            if (sourceScale.debugLog) {
                 ScalingHealth.LOGGER.debug(MARKER, "{} on {}: {} -> {} (scale={}, affected={}, change={})",
                         source.damageType, entity.getScoreboardName(), original, newAmount, scale, affectedAmount, change);
             }
         }
     }
 
-    private static double getEffectScale(LivingEntity entity) {
-        DamageScalingMechanics config = SHMechanicListener.getDamageScalingMechanics();
+    // Explosions and many AoE attacks hit every victim with the same source instance, so the
+    // source-dependent part only has to be worked out once per tick
+    private static SourceScale getSourceScale(DamageSource source) {
+        SourceScale cached = SOURCE_SCALES_THIS_TICK.get(source);
+        if (cached == null) {
+            cached = new SourceScale(source);
+            SOURCE_SCALES_THIS_TICK.put(source, cached);
+        }
+        return cached;
+    }
+
+    private static EffectScale getEffectScale(LivingEntity entity) {
+        EffectScale cached = EFFECT_SCALES.get(entity.getEntityId());
+        if (cached == null) {
+            cached = new EffectScale(entity);
+            EFFECT_SCALES.put(entity.getEntityId(), cached);
+        }
+        return cached;
+    }
+
+    private static double computeEffectScale(LivingEntity entity, DamageScalingMechanics config) {
         Mode mode = config.mode;
         switch (mode) {
             case AREA_DIFFICULTY:
@@ -132,7 +161,114 @@ public final class DamageScaling {
 
     @SubscribeEvent
     public static void onServerTick(TickEvent.ServerTickEvent event) {
-        ENTITY_ATTACKED_THIS_TICK.clear();
+        if (event.phase != TickEvent.Phase.END) return;
+
+        SOURCE_SCALES_THIS_TICK.clear();
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+        if (!event.getWorld().isRemote())
+            EFFECT_SCALES.remove(event.getEntity().getEntityId());
+    }
+
+    /**
+     * Everything about a hit that only depends on its damage source and the config: the scale of
+     * the damage type, and whether damage scaling is enabled for each entity group. Mechanics and
+     * config are read once per source per tick.
+     */
+    private static final class SourceScale {
+        private final DamageScalingMechanics mechanics;
+        private final float scale;
+        private final boolean enabled;
+        private final boolean affectPlayers;
+        private final boolean affectPeaceful;
+        private final boolean affectHostiles;
+        private final boolean debugLog;
+
+        private SourceScale(DamageSource source) {
+            this.mechanics = SHMechanicListener.getDamageScalingMechanics();
+            // Get scaling factor from map, if it exists. Otherwise, use the generic scale.
+            this.scale = mechanics.getScale(source.getDamageType());
+            this.affectPlayers = EnabledFeatures.playerDamageScalingEnabled();
+            this.enabled = affectPlayers || EnabledFeatures.mobDamageScalingEnabled();
+            this.affectPeaceful = mechanics.affectPeaceful;
+            this.affectHostiles = mechanics.affectHostiles;
+            this.debugLog = SHConfig.SERVER.debugLogScaledDamage.get();
+        }
+
+        // Same as EntityGroup#isAffectedByDamageScaling
+        private boolean affects(EntityGroup group) {
+            switch (group) {
+                case PLAYER:
+                    return affectPlayers;
+                case PEACEFUL:
+                    return affectPeaceful;
+                default:
+                    return affectHostiles;
+            }
+        }
+    }
+
+    /**
+     * The effect scale of an entity, along with the inputs it was computed from, and when its
+     * damage was last scaled. It is only
+     * computed again when one of the inputs the current mode depends on has changed, so entities
+     * hit by many things in a row (sweeps, arrow volleys, explosions) don't redo the work.
+     */
+    private static final class EffectScale {
+        // Area difficulty changes slowly, so only recompute it after moving a few blocks or after
+        // a short while
+        private static final double AREA_MOVE_DISTANCE_SQ = 4 * 4;
+        private static final long AREA_MAX_AGE = 20;
+
+        @Nullable private final IDifficultySource source;
+        private final IDifficultyAffected affected;
+        @Nullable private DamageScalingMechanics mechanics;
+        private double value;
+        private float maxHealth;
+        private float difficulty;
+        private double x, y, z;
+        private long gameTime;
+        // Game time the entity last had its damage scaled, to scale at most one fresh hit per tick
+        private long lastScaledTime = Long.MIN_VALUE;
+
+        private EffectScale(LivingEntity entity) {
+            this.source = entity instanceof PlayerEntity ? SHDifficulty.source(entity) : null;
+            this.affected = SHDifficulty.affected(entity);
+        }
+
+        private double get(LivingEntity entity, DamageScalingMechanics config) {
+            if (config != mechanics || !isValid(entity, config.mode)) {
+                mechanics = config;
+                value = computeEffectScale(entity, config);
+                maxHealth = entity.getMaxHealth();
+                difficulty = getDifficulty();
+                x = entity.getPosX();
+                y = entity.getPosY();
+                z = entity.getPosZ();
+                gameTime = entity.world.getGameTime();
+            }
+            return value;
+        }
+
+        private boolean isValid(LivingEntity entity, Mode mode) {
+            switch (mode) {
+                case AREA_DIFFICULTY:
+                    return entity.getDistanceSq(x, y, z) < AREA_MOVE_DISTANCE_SQ
+                            && entity.world.getGameTime() - gameTime < AREA_MAX_AGE;
+                case MAX_HEALTH:
+                    return entity.getMaxHealth() == maxHealth;
+                case DIFFICULTY:
+                    return getDifficulty() == difficulty;
+                default:
+                    return false;
+            }
+        }
+
+        private float getDifficulty() {
+            return source != null ? source.getDifficulty() : affected.affectiveDifficulty();
+        }
     }
 
     public enum Mode implements IStringSerializable {
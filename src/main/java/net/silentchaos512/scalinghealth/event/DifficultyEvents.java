@@ -2,7 +2,6 @@ package net.silentchaos512.scalinghealth.event;
 
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.passive.TameableEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.INBT;
@@ -15,8 +14,8 @@ import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.ICapabilityProvider;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.entity.living.LivingDeathEvent;
-import net.minecraftforge.event.entity.living.LivingEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -27,6 +26,7 @@ import net.silentchaos512.scalinghealth.capability.DifficultySourceCapability;
 import net.silentchaos512.scalinghealth.capability.PetHealthCapability;
 import net.silentchaos512.scalinghealth.capability.PlayerDataCapability;
 import net.silentchaos512.scalinghealth.config.SHConfig;
+import net.silentchaos512.scalinghealth.utils.TickScheduler;
 import net.silentchaos512.scalinghealth.utils.config.EnabledFeatures;
 import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
 import net.silentchaos512.scalinghealth.utils.config.SHPlayers;
@@ -75,28 +75,29 @@ public final class DifficultyEvents {
     }
 
     @SubscribeEvent
-    public static void onLivingUpdate(LivingEvent.LivingUpdateEvent event) {
-        LivingEntity entity = event.getEntityLiving();
-        //Return if players are empty on an integrated server, as the player needs a small delay to connect.
-        if (entity.world.isRemote || (entity.world.getPlayers().isEmpty() && !((ServerWorld)entity.world).getServer().isDedicatedServer()))
-            return;
-
-        // Tick mobs, which will calculate difficulty when appropriate and apply changes
-        if (entity instanceof MobEntity)
-            entity.getCapability(DifficultyAffectedCapability.INSTANCE).ifPresent(data ->
-                    data.tick((MobEntity)entity));
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        Entity entity = event.getEntity();
+        if (event.getWorld().isRemote()) return;
+
+        if (entity instanceof PlayerEntity)
+            TickScheduler.schedule((PlayerEntity) entity, 20, 20, DifficultyEvents::onPlayerSecond);
+        else if (entity instanceof TameableEntity && ((TameableEntity) entity).isTamed())
+            TickScheduler.schedule((TameableEntity) entity, 3, DifficultyEvents::refreshPet);
+    }
 
-        if(entity instanceof TameableEntity) {
-            if(!((TameableEntity) entity).isTamed()) return;
-                entity.getCapability(PetHealthCapability.INSTANCE).ifPresent(data ->
-                        data.tick((TameableEntity) entity));
-        }
+    private static void onPlayerSecond(PlayerEntity player) {
+        SHDifficulty.source(player).addDifficulty((float) SHDifficulty.changePerSecond());
+        SHPlayers.getPlayerData(player).tick(player);
+    }
 
-        if (entity instanceof PlayerEntity && entity.world.getGameTime() % 20 == 0) {
-            entity.getCapability(DifficultySourceCapability.INSTANCE).ifPresent(source -> {
-                source.addDifficulty((float) SHDifficulty.changePerSecond());
-            });
+    private static void refreshPet(TameableEntity pet) {
+        //Wait if players are empty on an integrated server, as the player needs a small delay to connect.
+        //Pets in chunks that are not ticking are not ticked either, so they can't be refreshed yet.
+        if (pet.ticksExisted <= 2 || (pet.world.getPlayers().isEmpty() && !((ServerWorld) pet.world).getServer().isDedicatedServer())) {
+            TickScheduler.schedule(pet, 20, DifficultyEvents::refreshPet);
+            return;
         }
+        pet.getCapability(PetHealthCapability.INSTANCE).ifPresent(data -> data.tick(pet));
     }
 
     @SubscribeEvent
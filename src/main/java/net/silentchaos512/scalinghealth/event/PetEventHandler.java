@@ -18,33 +18,100 @@
 
 package net.silentchaos512.scalinghealth.event;
 
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.passive.TameableEntity;
 import net.minecraft.util.ActionResultType;
-import net.minecraftforge.event.entity.living.LivingEvent.LivingUpdateEvent;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.entity.living.AnimalTameEvent;
+import net.minecraftforge.event.entity.living.LivingDamageEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
 import net.silentchaos512.scalinghealth.ScalingHealth;
 import net.silentchaos512.scalinghealth.objects.item.HeartCrystal;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
 import net.silentchaos512.scalinghealth.utils.config.EnabledFeatures;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
 @Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class PetEventHandler {
+    // Tamed pets that may need healing, per world. Only these are looked at by the regen pass.
+    private static final Map<RegistryKey<World>, Set<TameableEntity>> INJURED_PETS = new HashMap<>();
+
+    @SubscribeEvent
+    public static void onPetDamaged(LivingDamageEvent event) {
+        if (event.getAmount() > 0)
+            track(event.getEntityLiving());
+    }
+
+    @SubscribeEvent
+    public static void onPetTamed(AnimalTameEvent event) {
+        // Fired before the animal is tamed, the regen pass drops it again if taming fails
+        track(event.getAnimal());
+    }
+
+    @SubscribeEvent
+    public static void onPetJoinWorld(EntityJoinWorldEvent event) {
+        Entity entity = event.getEntity();
+        if (entity instanceof TameableEntity && ((TameableEntity) entity).getHealth() < ((TameableEntity) entity).getMaxHealth())
+            track((TameableEntity) entity);
+    }
+
+    @SubscribeEvent
+    public static void onPetLeaveWorld(EntityLeaveWorldEvent event) {
+        if (event.getEntity() instanceof TameableEntity && event.getWorld() instanceof ServerWorld) {
+            Set<TameableEntity> pets = INJURED_PETS.get(((ServerWorld) event.getWorld()).getDimensionKey());
+            if (pets != null)
+                pets.remove(event.getEntity());
+        }
+    }
+
     @SubscribeEvent
-    public static void onLivingUpdate(LivingUpdateEvent event) {
-        double regenDelay = SHMechanicListener.getMobMechanics().pets.petsRegenDelay;
-        if (regenDelay <= 0)
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || !(event.world instanceof ServerWorld)) return;
+
+        Set<TameableEntity> pets = INJURED_PETS.get(event.world.getDimensionKey());
+        if (pets == null || pets.isEmpty()) return;
+
+        int regenDelay = SHMechanicListener.getMobMechanics().pets.petsRegenDelay;
+        if (regenDelay <= 0 || event.world.getGameTime() % regenDelay != 0)
             return;
 
-        LivingEntity entity = event.getEntityLiving();
-        if (entity != null && !entity.world.isRemote) {
-            boolean fullHp = entity.getHealth() == entity.getMaxHealth();
-            boolean isTamed = entity instanceof TameableEntity && ((TameableEntity) entity).isTamed();
-            boolean isRegenTime = entity.hurtResistantTime <= 0 && entity.ticksExisted % regenDelay == 0;
-            if (isTamed && isRegenTime && !fullHp)
-                entity.heal(2f);
+        for (Iterator<TameableEntity> it = pets.iterator(); it.hasNext(); ) {
+            TameableEntity pet = it.next();
+            if (!pet.isAlive() || !pet.isAddedToWorld() || !pet.isTamed()) {
+                it.remove();
+                continue;
+            }
+
+            if (pet.hurtResistantTime <= 0)
+                pet.heal(2f);
+            if (pet.getHealth() >= pet.getMaxHealth())
+                it.remove();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        INJURED_PETS.clear();
+    }
+
+    private static void track(LivingEntity entity) {
+        if (entity instanceof TameableEntity && entity.world instanceof ServerWorld) {
+            INJURED_PETS.computeIfAbsent(entity.world.getDimensionKey(), k -> new ReferenceOpenHashSet<>())
+                    .add((TameableEntity) entity);
         }
     }
 
@@ -28,24 +28,20 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.common.Mod;
 import net.silentchaos512.scalinghealth.ScalingHealth;
+import net.silentchaos512.scalinghealth.capability.CapabilityCache;
+import net.silentchaos512.scalinghealth.capability.IPlayerData;
 import net.silentchaos512.scalinghealth.resources.mechanics.PlayerMechanics;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-
 @Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
 public final class PlayerBonusRegenHandler {
-    private static final Map<UUID, Integer> TIMERS = new HashMap<>();
-
     private PlayerBonusRegenHandler() {}
 
     public static int getTimerForPlayer(PlayerEntity player) {
         if (player == null) return -1;
 
-        UUID uuid = player.getUniqueID();
-        return TIMERS.getOrDefault(uuid, -1);
+        IPlayerData data = CapabilityCache.playerData(player);
+        return data != null ? data.getRegenTimer() : -1;
     }
 
     @SubscribeEvent
@@ -53,24 +49,25 @@ public final class PlayerBonusRegenHandler {
         if (event.side == LogicalSide.CLIENT) return;
 
         PlayerEntity player = event.player;
-        PlayerMechanics.RegenMechanics config = SHMechanicListener.getPlayerMechanics().regenMechanics;
+        IPlayerData data = CapabilityCache.playerData(player);
+        if (data == null) return;
 
-        UUID uuid = player.getUniqueID();
+        PlayerMechanics.RegenMechanics config = SHMechanicListener.getPlayerMechanics().regenMechanics;
 
-        // Add player timer if needed.
-        if (!TIMERS.containsKey(uuid)) {
-            TIMERS.put(uuid, (int) (config.initialDelay * 20));
+        // Start player timer if needed.
+        if (data.getRegenTimer() < 0) {
+            data.setRegenTimer((int) (config.initialDelay * 20));
         }
 
         if (isActive(player)) {
             // Tick timer, heal player and reset on 0.
-            int timer = TIMERS.get(uuid);
+            int timer = data.getRegenTimer();
             if (--timer <= 0) {
                 player.heal(getHealTickAmount(player));
                 player.addExhaustion((float) config.exhaustion);
                 timer = (int) (20 * config.tickDelay);
             }
-            TIMERS.put(uuid, timer);
+            data.setRegenTimer(timer);
         }
     }
 
@@ -78,7 +75,9 @@ public final class PlayerBonusRegenHandler {
     public static void onPlayerHurt(LivingHurtEvent event) {
         LivingEntity entity = event.getEntityLiving();
         if (!entity.world.isRemote && entity instanceof PlayerEntity) {
-            TIMERS.put(entity.getUniqueID(), (int) (SHMechanicListener.getPlayerMechanics().regenMechanics.initialDelay * 20));
+            IPlayerData data = CapabilityCache.playerData(entity);
+            if (data != null)
+                data.setRegenTimer((int) (SHMechanicListener.getPlayerMechanics().regenMechanics.initialDelay * 20));
         }
     }
 
@@ -3,6 +3,8 @@ package net.silentchaos512.scalinghealth.resources.mechanics;
 import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.objects.Object2FloatMap;
+import it.unimi.dsi.fastutil.objects.Object2FloatOpenHashMap;
 import net.silentchaos512.scalinghealth.event.DamageScaling;
 import net.silentchaos512.scalinghealth.utils.serialization.SerializationUtils;
 
@@ -33,6 +35,8 @@ public class DamageScalingMechanics {
     public final List<String> modBlackList;
     public final DamageScaling.Mode mode;
     public final List<Pair<List<String>, Double>> scales;
+    // Product of all matching scales for each damage type, or the generic scale if none match
+    private final Object2FloatMap<String> scaleByType = new Object2FloatOpenHashMap<>();
 
     public DamageScalingMechanics(double difficultyWeight, double genericScale, boolean affectHostiles, boolean affectPeaceful, List<String> modBlackList, DamageScaling.Mode mode, List<Pair<List<String>, Double>> scales) {
         this.difficultyWeight = difficultyWeight;
@@ -42,5 +46,26 @@ public class DamageScalingMechanics {
         this.modBlackList = modBlackList;
         this.mode = mode;
         this.scales = scales;
+
+        this.scaleByType.defaultReturnValue((float) genericScale);
+        for (Pair<List<String>, Double> p : scales) {
+            for (String type : p.getFirst()) {
+                if (!this.scaleByType.containsKey(type))
+                    this.scaleByType.put(type, (float) computeScale(type));
+            }
+        }
+    }
+
+    public float getScale(String damageType) {
+        return scaleByType.getFloat(damageType);
+    }
+
+    private double computeScale(String damageType) {
+        double scale = 1;
+        for (Pair<List<String>, Double> p : scales) {
+            if (p.getFirst().contains(damageType))
+                scale *= p.getSecond();
+        }
+        return scale;
     }
 }
@@ -1,24 +1,32 @@
 package net.silentchaos512.scalinghealth.resources.mechanics;
 
+import com.google.common.collect.ImmutableMap;
 import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
-import com.udojava.evalex.Expression;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.tags.ITag;
+import net.minecraft.tags.TagCollectionManager;
+import net.minecraft.util.RegistryKey;
 import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
 import net.minecraftforge.registries.ForgeRegistries;
+import net.silentchaos512.scalinghealth.config.CompiledExpression;
+import net.silentchaos512.scalinghealth.utils.EntityGroup;
 import net.silentchaos512.scalinghealth.utils.mode.AreaDifficultyMode;
 import net.silentchaos512.scalinghealth.utils.serialization.SerializationUtils;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class DifficultyMechanics {
     public static final String FILE = "difficulty";
@@ -48,7 +56,7 @@ public class DifficultyMechanics {
     public final double maxValue;
     public final double changePerSecond;
     public final AreaDifficultyMode mode;
-    public final Supplier<Expression> groupBonus;
+    public final CompiledExpression groupBonus;
     public final int groupBonusRadius;
     public final double idleMultiplier;
     public final boolean afkMessage;
@@ -57,7 +65,7 @@ public class DifficultyMechanics {
     public final Multipliers multipliers;
     public final Mutators mutators;
 
-    public DifficultyMechanics(SerializationUtils.NumberConstraint<Double, Double, Double> nc, double changePerSecond, AreaDifficultyMode mode, Supplier<Expression> groupBonus, int groupBonusRadius, double idleMultiplier, boolean afkMessage, int timeBeforeAfk, boolean sleepWarningMessage, Multipliers multipliers, Mutators mutators) {
+    public DifficultyMechanics(SerializationUtils.NumberConstraint<Double, Double, Double> nc, double changePerSecond, AreaDifficultyMode mode, CompiledExpression groupBonus, int groupBonusRadius, double idleMultiplier, boolean afkMessage, int timeBeforeAfk, boolean sleepWarningMessage, Multipliers multipliers, Mutators mutators) {
         this.starting = nc.starting;
         this.minValue = nc.min;
         this.maxValue = nc.max == 0 ? Integer.MAX_VALUE : nc.max;
@@ -98,15 +106,15 @@ public class DifficultyMechanics {
 
         private final List<Double> lunarMultipliers;
         private final List<Pair<Double, Pair<List<ResourceLocation>, List<ResourceLocation>>>> locationMultipliers;
-        private final List<ResourceLocation> biomes;
-        private final List<ResourceLocation> dimensions;
-        private final Map<Pair<World, Biome>, Double> scaleMap = new HashMap<>();
+        // Scales per biome id, built the first time a dimension is looked up. Client and server
+        // worlds can have different biome registries, so they get their own tables. The registry
+        // is kept with the table, so lookups don't have to resolve it again.
+        private volatile Map<RegistryKey<World>, BiomeTable> serverTables = ImmutableMap.of();
+        private volatile Map<RegistryKey<World>, BiomeTable> clientTables = ImmutableMap.of();
 
         public Multipliers(List<Double> lunarMultipliers, List<Pair<Double, Pair<List<ResourceLocation>, List<ResourceLocation>>>> locationMultipliers) {
             this.lunarMultipliers = lunarMultipliers;
             this.locationMultipliers = locationMultipliers;
-            this.biomes = locationMultipliers.stream().flatMap(l -> l.getSecond().getFirst().stream()).collect(Collectors.toList());
-            this.dimensions = locationMultipliers.stream().flatMap(l -> l.getSecond().getSecond().stream()).collect(Collectors.toList());
         }
 
         public double getLunarMultiplier(int phase) {
@@ -114,58 +122,81 @@ public class DifficultyMechanics {
         }
 
         public double getScale(World world, Biome biome) {
-            Pair<World, Biome> p = new Pair<>(world, biome);
-            if (scaleMap.containsKey(p))
-                return scaleMap.get(p);
-
-            ResourceLocation dim = world.getDimensionKey().getLocation();
-            if (!dimensions.contains(dim) && !biomes.contains(biome.getRegistryName())) {
-                scaleMap.put(p, 1D);
-                return 1D;
-            }
-            double scale = biomeAndDimMatch(world, biome) * biomeMatch(biome) * dimMatch(world);
-            scaleMap.put(p, scale);
-            return scale;
+            BiomeTable table = (world.isRemote ? clientTables : serverTables).get(world.getDimensionKey());
+            if (table == null)
+                table = buildTable(world);
+
+            int id = table.registry.getId(biome);
+            if (id >= 0 && id < table.scales.length)
+                return table.scales[id];
+            // Not a registered biome, nothing to cache it by
+            return computeScale(world.getDimensionKey().getLocation(), biome.getRegistryName());
         }
 
-        //Check the scales that have specified both a dimension and a biome.
-        private double biomeAndDimMatch(World w, Biome b) {
-            ResourceLocation biome = b.getRegistryName();
-            ResourceLocation dim = w.getDimensionKey().getLocation();
-            return locationMultipliers.stream()
-                    .filter(p -> p.getSecond().getFirst().contains(biome))
-                    .filter(p -> p.getSecond().getSecond().contains(dim))
-                    .map(Pair::getFirst)
-                    .reduce((d1, d2) -> d1 * d2)
-                    .orElse(1D);
+        private synchronized BiomeTable buildTable(World world) {
+            Map<RegistryKey<World>, BiomeTable> tables = world.isRemote ? clientTables : serverTables;
+            RegistryKey<World> key = world.getDimensionKey();
+            BiomeTable table = tables.get(key);
+            if (table != null)
+                return table;
+
+            Registry<Biome> registry = world.func_241828_r().getRegistry(Registry.BIOME_KEY);
+            int size = 0;
+            for (Biome biome : registry)
+                size = Math.max(size, registry.getId(biome) + 1);
+            double[] scales = new double[size];
+            Arrays.fill(scales, 1);
+            for (Biome biome : registry)
+                scales[registry.getId(biome)] = computeScale(key.getLocation(), registry.getKey(biome));
+            table = new BiomeTable(registry, scales);
+
+            Map<RegistryKey<World>, BiomeTable> updated = ImmutableMap.<RegistryKey<World>, BiomeTable>builder()
+                    .putAll(tables)
+                    .put(key, table)
+                    .build();
+            if (world.isRemote)
+                clientTables = updated;
+            else
+                serverTables = updated;
+            return table;
         }
 
-        //Check the scales that only have a biome specified
-        private double biomeMatch(Biome b) {
-            ResourceLocation biome = b.getRegistryName();
-            return locationMultipliers.stream()
-                    .filter(p -> p.getSecond().getFirst().contains(biome))
-                    .filter(p -> p.getSecond().getSecond().isEmpty())
-                    .map(Pair::getFirst)
-                    .reduce((d1, d2) -> d1 * d2)
-                    .orElse(1D);
+        //Multiply the scales matching both the dimension and biome, only the biome, or only the dimension
+        private double computeScale(ResourceLocation dim, @Nullable ResourceLocation biome) {
+            double scale = 1;
+            for (Pair<Double, Pair<List<ResourceLocation>, List<ResourceLocation>>> p : locationMultipliers) {
+                List<ResourceLocation> biomes = p.getSecond().getFirst();
+                List<ResourceLocation> dimensions = p.getSecond().getSecond();
+                boolean biomeMatches = biome != null && biomes.contains(biome);
+                boolean dimMatches = dimensions.contains(dim);
+                if ((biomeMatches && (dimMatches || dimensions.isEmpty())) || (dimMatches && biomes.isEmpty()))
+                    scale *= p.getFirst();
+            }
+            return scale;
         }
 
-        //Check the scales that only have a dimension specified
-        private double dimMatch(World w) {
-            ResourceLocation dim = w.getDimensionKey().getLocation();
-            return locationMultipliers.stream()
-                    .filter(p -> p.getSecond().getSecond().contains(dim))
-                    .filter(p -> p.getSecond().getFirst().isEmpty())
-                    .map(Pair::getFirst)
-                    .reduce((d1, d2) -> d1 * d2)
-                    .orElse(1D);
+        private static final class BiomeTable {
+            private final Registry<Biome> registry;
+            private final double[] scales;
+
+            private BiomeTable(Registry<Biome> registry, double[] scales) {
+                this.registry = registry;
+                this.scales = scales;
+            }
         }
     }
 
     public static class Mutators {
-        private static final Function<ResourceLocation, DataResult<ResourceLocation>> ONLY_ENTITES = rl ->
-                ForgeRegistries.ENTITIES.containsKey(rl) ? DataResult.success(rl) : DataResult.error(rl + " is not an entity!");
+        // Entries are either entity ids, or entity type tags prefixed with '#'
+        private static final Function<String, DataResult<String>> ENTITY_OR_TAG = s -> {
+            boolean tag = s.startsWith("#");
+            ResourceLocation rl = ResourceLocation.tryCreate(tag ? s.substring(1) : s);
+            if (rl == null)
+                return DataResult.error(s + " is not a valid id!");
+            if (!tag && !ForgeRegistries.ENTITIES.containsKey(rl))
+                return DataResult.error(rl + " is not an entity!");
+            return DataResult.success(s);
+        };
 
         public static final Codec<Mutators> CODEC = RecordCodecBuilder.create(inst ->
                 inst.group(
@@ -176,21 +207,26 @@ public class DifficultyMechanics {
                         SerializationUtils.EXPRESSION_CODEC.fieldOf("onPlayerDeath").forGetter(m -> m.onPlayerDeath),
                         SerializationUtils.EXPRESSION_CODEC.fieldOf("onPlayerSleep").forGetter(m -> m.onPlayerSleep),
                         Codec.mapPair(
-                                ResourceLocation.CODEC.flatXmap(ONLY_ENTITES, ONLY_ENTITES).listOf().fieldOf("entities"),
+                                Codec.STRING.flatXmap(ENTITY_OR_TAG, ENTITY_OR_TAG).listOf().fieldOf("entities"),
                                 SerializationUtils.EXPRESSION_CODEC.fieldOf("onKilled")
                         ).codec().listOf().fieldOf("byEntity").forGetter(m -> m.byEntity)
                 ).apply(inst, Mutators::new)
         );
 
-        public final Supplier<Expression> onBlightKilled;
-        public final Supplier<Expression> onHostileKilled;
-        public final Supplier<Expression> onPeacefulKilled;
-        public final Supplier<Expression> onPlayerKilled;
-        public final Supplier<Expression> onPlayerDeath;
-        public final Supplier<Expression> onPlayerSleep;
-        public final List<Pair<List<ResourceLocation>, Supplier<Expression>>> byEntity;
+        public final CompiledExpression onBlightKilled;
+        public final CompiledExpression onHostileKilled;
+        public final CompiledExpression onPeacefulKilled;
+        public final CompiledExpression onPlayerKilled;
+        public final CompiledExpression onPlayerDeath;
+        public final CompiledExpression onPlayerSleep;
+        public final List<Pair<List<String>, CompiledExpression>> byEntity;
 
-        public Mutators(Supplier<Expression> onBlightKilled, Supplier<Expression> onHostileKilled, Supplier<Expression> onPeacefulKilled, Supplier<Expression> onPlayerKilled, Supplier<Expression> onPlayerDeath, Supplier<Expression> onPlayerSleep, List<Pair<List<ResourceLocation>, Supplier<Expression>>> byEntity) {
+        // Kill mutator of each entity type killed so far. Tags can change without a mechanics
+        // reload, so this is thrown away when they do.
+        private final Map<EntityType<?>, CompiledExpression> onKilledByType = new Reference2ObjectOpenHashMap<>();
+        private int tagGeneration = -1;
+
+        public Mutators(CompiledExpression onBlightKilled, CompiledExpression onHostileKilled, CompiledExpression onPeacefulKilled, CompiledExpression onPlayerKilled, CompiledExpression onPlayerDeath, CompiledExpression onPlayerSleep, List<Pair<List<String>, CompiledExpression>> byEntity) {
             this.onBlightKilled = onBlightKilled;
             this.onHostileKilled = onHostileKilled;
             this.onPeacefulKilled = onPeacefulKilled;
@@ -199,5 +235,42 @@ public class DifficultyMechanics {
             this.onPlayerSleep = onPlayerSleep;
             this.byEntity = byEntity;
         }
+
+        /**
+         * Get the mutator to apply when a non-player entity is killed: the first matching
+         * {@code byEntity} entry, or else the peaceful or hostile mutator. Blights are not
+         * considered, {@link #onBlightKilled} applies on top of this.
+         */
+        public CompiledExpression getOnKilled(LivingEntity entity) {
+            int generation = SHMechanicListener.getTagGeneration();
+            if (tagGeneration != generation) {
+                onKilledByType.clear();
+                tagGeneration = generation;
+            }
+
+            CompiledExpression mutator = onKilledByType.get(entity.getType());
+            if (mutator == null) {
+                mutator = resolveOnKilled(entity);
+                onKilledByType.put(entity.getType(), mutator);
+            }
+            return mutator;
+        }
+
+        private CompiledExpression resolveOnKilled(LivingEntity entity) {
+            EntityType<?> type = entity.getType();
+            for (Pair<List<String>, CompiledExpression> p : byEntity) {
+                for (String s : p.getFirst()) {
+                    if (s.startsWith("#")) {
+                        ITag<EntityType<?>> tag = TagCollectionManager.getManager().getEntityTypeTags().get(new ResourceLocation(s.substring(1)));
+                        if (tag != null && tag.contains(type))
+                            return p.getSecond();
+                    } else if (new ResourceLocation(s).equals(type.getRegistryName())) {
+                        return p.getSecond();
+                    }
+                }
+            }
+            // IMob is implemented per entity class, so this is the same for every entity of the type
+            return EntityGroup.from(entity, true) == EntityGroup.PEACEFUL ? onPeacefulKilled : onHostileKilled;
+        }
     }
 }
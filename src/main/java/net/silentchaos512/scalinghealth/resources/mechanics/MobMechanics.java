@@ -2,11 +2,20 @@ package net.silentchaos512.scalinghealth.resources.mechanics;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.ai.attributes.AttributeModifier;
+import net.silentchaos512.scalinghealth.utils.MobDifficultyHandler;
+import net.silentchaos512.scalinghealth.utils.ModifierHandler;
+import net.silentchaos512.scalinghealth.utils.config.SHMobs;
 import net.silentchaos512.scalinghealth.utils.mode.MobHealthMode;
 import net.silentchaos512.scalinghealth.utils.serialization.DifficultyMobEffect;
 import net.silentchaos512.scalinghealth.utils.serialization.SerializationUtils;
 
 import java.util.List;
+import java.util.Optional;
 
 public class MobMechanics {
     public static final String FILE = "mobs";
@@ -17,22 +26,27 @@ public class MobMechanics {
                     Generic.CODEC.fieldOf("general").forGetter(m -> m.generic),
                     DifficultyMobEffect.CODEC.listOf().fieldOf("effects").forGetter(m -> m.mobEffects),
                     Blight.CODEC.fieldOf("blights").forGetter(m -> m.blight),
-                    Pets.CODEC.fieldOf("pets").forGetter(m -> m.pets)
+                    Pets.CODEC.fieldOf("pets").forGetter(m -> m.pets),
+                    Tiers.CODEC.optionalFieldOf("tiers").forGetter(m -> m.tiers)
             ).apply(inst, MobMechanics::new)
     );
 
     public final MobHealthMode mode;
     public final Generic generic;
     public final List<DifficultyMobEffect> mobEffects;
+    public final DifficultyMobEffect.Table mobEffectTable;
     public final Blight blight;
     public final Pets pets;
+    public final Optional<Tiers> tiers;
 
-    public MobMechanics(MobHealthMode mode, Generic generic, List<DifficultyMobEffect> mobEffects, Blight blight, Pets pets) {
+    public MobMechanics(MobHealthMode mode, Generic generic, List<DifficultyMobEffect> mobEffects, Blight blight, Pets pets, Optional<Tiers> tiers) {
         this.mode = mode;
         this.generic = generic;
         this.mobEffects = mobEffects;
+        this.mobEffectTable = new DifficultyMobEffect.Table(mobEffects);
         this.blight = blight;
         this.pets = pets;
+        this.tiers = tiers;
     }
 
     public static class Generic {
@@ -112,4 +126,74 @@ public class MobMechanics {
             this.petsHealthCrystalGain = petsHealthCrystalGain;
         }
     }
+
+    /**
+     * Optional tiered mode. Mob difficulty is quantized into buckets of {@link #size}, and the damage
+     * roll into {@link #damageSteps} steps, so health and damage modifiers can be built once and
+     * shared by every mob in the same tier.
+     */
+    public static class Tiers {
+        public static final Codec<Tiers> CODEC = RecordCodecBuilder.create(inst ->
+                inst.group(
+                        SerializationUtils.positiveDouble(0.01).fieldOf("size").forGetter(t -> t.size),
+                        SerializationUtils.positiveInt(1).optionalFieldOf("damageSteps", 8).forGetter(t -> t.damageSteps)
+                ).apply(inst, Tiers::new)
+        );
+
+        public final double size;
+        public final int damageSteps;
+
+        private final Long2ObjectMap<AttributeModifier> healthModifiers = new Long2ObjectOpenHashMap<>();
+        private final Int2ObjectMap<AttributeModifier[]> damageModifiers = new Int2ObjectOpenHashMap<>();
+
+        public Tiers(double size, int damageSteps) {
+            this.size = size;
+            this.damageSteps = damageSteps;
+        }
+
+        public int getTier(double difficulty) {
+            return (int) (difficulty / size);
+        }
+
+        /**
+         * The difficulty every mob in the tier is scaled with, the middle of the bucket.
+         */
+        public double getDifficulty(int tier) {
+            return (tier + 0.5) * size;
+        }
+
+        /**
+         * Get the shared health modifier for a tier. Base max health is part of the key, because
+         * some health modes depend on it and some mobs (horses, for example) randomize it.
+         */
+        public AttributeModifier getHealthModifier(int tier, boolean hostile, boolean fromSpawner, double baseMaxHp) {
+            long key = (long) tier << 34 | (hostile ? 1L << 33 : 0) | (fromSpawner ? 1L << 32 : 0)
+                    | Float.floatToIntBits((float) baseMaxHp) & 0xFFFFFFFFL;
+            AttributeModifier modifier = healthModifiers.get(key);
+            if (modifier == null) {
+                double amount = MobDifficultyHandler.getHealthBoost(getDifficulty(tier), hostile, fromSpawner, baseMaxHp);
+                modifier = ModifierHandler.healthModifier(amount, SHMobs.getHealthMode().getOp());
+                healthModifiers.put(key, modifier);
+            }
+            return modifier;
+        }
+
+        /**
+         * Get the shared attack damage modifier for a tier and a damage roll step in
+         * {@code [0, damageSteps)}.
+         */
+        public AttributeModifier getDamageModifier(int tier, int step) {
+            AttributeModifier[] modifiers = damageModifiers.get(tier);
+            if (modifiers == null) {
+                modifiers = new AttributeModifier[damageSteps];
+                damageModifiers.put(tier, modifiers);
+            }
+            if (modifiers[step] == null) {
+                double roll = (step + 0.5) / damageSteps;
+                double amount = MobDifficultyHandler.getDamageBoost(getDifficulty(tier) * roll);
+                modifiers[step] = ModifierHandler.damageModifier(amount, AttributeModifier.Operation.ADDITION);
+            }
+            return modifiers[step];
+        }
+    }
 }
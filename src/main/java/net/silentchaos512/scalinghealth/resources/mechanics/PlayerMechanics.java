@@ -4,11 +4,10 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
-import com.udojava.evalex.Expression;
+import net.silentchaos512.scalinghealth.config.CompiledExpression;
 import net.silentchaos512.scalinghealth.utils.serialization.SerializationUtils;
 
 import java.util.function.Function;
-import java.util.function.Supplier;
 
 public class PlayerMechanics {
     public static final String FILE = "player";
@@ -31,13 +30,13 @@ public class PlayerMechanics {
     public final int startingHp;
     public final int minHealth;
     public final int maxHealth;
-    public final Supplier<Expression> healthOnDeath;
+    public final CompiledExpression healthOnDeath;
     public final double maxAttackDamage;
     public final int levelsPerHp;
     public final int hpPerLevel;
     public final RegenMechanics regenMechanics;
 
-    private PlayerMechanics(SerializationUtils.NumberConstraint<Integer, Integer, Integer> nc, Supplier<Expression> healthOnDeath, double maxAttackDamage, int levelsPerHp, int hpPerLevel, RegenMechanics regenMechanics) {
+    private PlayerMechanics(SerializationUtils.NumberConstraint<Integer, Integer, Integer> nc, CompiledExpression healthOnDeath, double maxAttackDamage, int levelsPerHp, int hpPerLevel, RegenMechanics regenMechanics) {
         this.startingHp = nc.starting;
         this.minHealth = nc.min;
         this.maxHealth = nc.max == 0 ? Integer.MAX_VALUE : nc.max;
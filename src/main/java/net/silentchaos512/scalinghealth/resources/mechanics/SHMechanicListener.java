@@ -10,6 +10,7 @@ import net.minecraft.profiler.IProfiler;
 import net.minecraft.resources.IResourceManager;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.TagsUpdatedEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.silentchaos512.scalinghealth.ScalingHealth;
@@ -24,6 +25,7 @@ import java.util.function.Function;
 public class SHMechanicListener extends JsonReloadListener {
     private static SHMechanicListener currentInstance = null;
     private static SHMechanicListener reloadingInstance = null;
+    private static int tagGeneration = 0;
 
     public static final Logger LOGGER = LogManager.getLogger("SHMechanicsListener");
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
@@ -73,6 +75,10 @@ public class SHMechanicListener extends JsonReloadListener {
         return currentInstance;
     }
 
+    public static boolean isLoaded() {
+        return currentInstance != null;
+    }
+
     private static Consumer<String> prefix(String pre) {
         return s -> LOGGER.error(pre + s);
     }
@@ -107,8 +113,21 @@ public class SHMechanicListener extends JsonReloadListener {
         ScalingHealth.LOGGER.debug("Loaded SHMechanics on the client.");
     }
 
+    /**
+     * Incremented every time tags are reloaded or synced, so anything resolved from tags can tell
+     * when it is out of date.
+     */
+    public static int getTagGeneration() {
+        return tagGeneration;
+    }
+
     @SubscribeEvent
     public static void addListener(AddReloadListenerEvent event) {
         event.addListener(new SHMechanicListener(true));
     }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        ++tagGeneration;
+    }
 }
@@ -10,4 +10,6 @@ public class EntityTags {
            EntityTypeTags.getTagById(ScalingHealth.getId("difficulty_exempt").toString());
    public static final ITag.INamedTag<EntityType<?>> BLIGHT_EXEMPT =
            EntityTypeTags.getTagById(ScalingHealth.getId("blight_exempt").toString());
+   public static final ITag.INamedTag<EntityType<?>> BOSSES =
+           EntityTypeTags.getTagById(ScalingHealth.getId("bosses").toString());
 }
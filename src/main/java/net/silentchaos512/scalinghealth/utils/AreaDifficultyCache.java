@@ -0,0 +1,114 @@
+package net.silentchaos512.scalinghealth.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+import net.silentchaos512.scalinghealth.config.SHConfig;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers area difficulty values computed during the current server tick. Many things ask for
+ * the area difficulty of the same position in a single tick (sync packets, idle checks, XP drops,
+ * damage scaling...), so only the first of them has to do the actual work.
+ */
+@Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
+public final class AreaDifficultyCache {
+    private static final Marker MARKER = MarkerManager.getMarker("AreaDifficultyCache");
+    private static final int STATS_LOG_INTERVAL = 6000;
+
+    private static final Map<RegistryKey<World>, WorldCache> CACHES = new HashMap<>();
+
+    private static long hits;
+    private static long misses;
+    private static int ticksSinceLog;
+
+    private AreaDifficultyCache() {throw new IllegalAccessError("Utility class");}
+
+    /**
+     * Whether values for this world can be cached. Only server worlds are, everything else should
+     * compute the value directly.
+     */
+    public static boolean canCache(World world) {
+        return world instanceof ServerWorld;
+    }
+
+    /**
+     * Get the value cached this tick, or {@link Double#NaN} if there is none.
+     */
+    public static double get(World world, BlockPos pos, boolean groupBonus) {
+        WorldCache cache = CACHES.get(world.getDimensionKey());
+        double value = cache != null ? cache.get(groupBonus).get(pos.toLong()) : Double.NaN;
+        if (Double.isNaN(value))
+            ++misses;
+        else
+            ++hits;
+        return value;
+    }
+
+    public static void put(World world, BlockPos pos, boolean groupBonus, double value) {
+        CACHES.computeIfAbsent(world.getDimensionKey(), k -> new WorldCache())
+                .get(groupBonus).put(pos.toLong(), value);
+    }
+
+    public static long getHits() {
+        return hits;
+    }
+
+    public static long getMisses() {
+        return misses;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        CACHES.values().forEach(WorldCache::clear);
+
+        if (++ticksSinceLog >= STATS_LOG_INTERVAL) {
+            ticksSinceLog = 0;
+            if (SHConfig.SERVER.debugMaster.get()) {
+                long total = hits + misses;
+                ScalingHealth.LOGGER.debug(MARKER, "Area difficulty lookups: {} hits, {} misses ({}% hit rate)",
+                        hits, misses, total > 0 ? 100 * hits / total : 0);
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerWorld)
+            CACHES.remove(((ServerWorld) event.getWorld()).getDimensionKey());
+    }
+
+    private static final class WorldCache {
+        private final Long2DoubleMap withGroupBonus = createMap();
+        private final Long2DoubleMap withoutGroupBonus = createMap();
+
+        private static Long2DoubleMap createMap() {
+            Long2DoubleMap map = new Long2DoubleOpenHashMap();
+            map.defaultReturnValue(Double.NaN);
+            return map;
+        }
+
+        private Long2DoubleMap get(boolean groupBonus) {
+            return groupBonus ? withGroupBonus : withoutGroupBonus;
+        }
+
+        private void clear() {
+            withGroupBonus.clear();
+            withoutGroupBonus.clear();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package net.silentchaos512.scalinghealth.utils;
+
+import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.longs.Long2FloatMap;
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMaps;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+import net.silentchaos512.scalinghealth.config.SHConfig;
+import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
+import net.silentchaos512.scalinghealth.utils.mode.AreaDifficultyMode;
+import net.silentchaos512.scalinghealth.utils.mode.PlayerSamples;
+import net.silentchaos512.scalinghealth.utils.mode.WorldSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Precomputes the area difficulty mode value for every chunk column around players on a
+ * background thread. At the end of each server tick, a {@link WorldSnapshot} of every world is
+ * taken and handed to the worker, which publishes a new field per world when it is done. The
+ * server thread then only has to look values up.
+ * <p>
+ * Each column is evaluated at the height of the nearest player, since that is where most mobs
+ * that ask for a value are.
+ * <p>
+ * Only the {@link AreaDifficultyMode} value is precomputed. Location, lunar and group multipliers
+ * still need the world and are applied by {@link SHDifficulty#areaDifficulty}.
+ */
+@Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
+public final class AreaDifficultyField {
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Scaling Health area difficulty");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile Map<RegistryKey<World>, Field> fields = ImmutableMap.of();
+    private static Future<?> pending;
+    private static int lastSubmitTick = -1;
+    // Bumped when fields are thrown away, so jobs that were already running don't publish old results
+    private static volatile int generation;
+    private static final Object PUBLISH_LOCK = new Object();
+
+    private AreaDifficultyField() {throw new IllegalAccessError("Utility class");}
+
+    /**
+     * Get the precomputed mode value at {@code pos}, or {@link Double#NaN} if there is no value
+     * recent enough, or it was computed with a different mode. Only server worlds have fields.
+     */
+    public static double get(World world, BlockPos pos, AreaDifficultyMode mode) {
+        if (!(world instanceof ServerWorld)) return Double.NaN;
+
+        Field field = fields.get(world.getDimensionKey());
+        if (field == null || field.mode != mode
+                || world.getGameTime() - field.gameTime > SHConfig.SERVER.asyncAreaDifficultyMaxAge.get())
+            return Double.NaN;
+        return field.values.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+    }
+
+    public static boolean isEnabled() {
+        return SHConfig.SERVER.asyncAreaDifficulty.get();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        if (!isEnabled()) {
+            if (!fields.isEmpty())
+                invalidate();
+            return;
+        }
+
+        // Worker is still busy with the last snapshot. Fields just get a bit older until it's done.
+        if (pending != null && !pending.isDone()) return;
+
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) return;
+
+        // Recompute twice per max age, so fields are replaced well before they go stale without
+        // keeping the worker busy all the time
+        int interval = Math.max(1, SHConfig.SERVER.asyncAreaDifficultyMaxAge.get() / 2);
+        int tick = server.getTickCounter();
+        if (lastSubmitTick >= 0 && tick - lastSubmitTick < interval) return;
+        lastSubmitTick = tick;
+
+        List<WorldSnapshot> snapshots = new ArrayList<>();
+        for (ServerWorld world : server.getWorlds()) {
+            if (!world.getPlayers().isEmpty())
+                snapshots.add(WorldSnapshot.capture(world));
+        }
+
+        AreaDifficultyMode mode = SHDifficulty.areaMode();
+        int radius = SHConfig.SERVER.asyncAreaDifficultyRadius.get();
+        int jobGeneration = generation;
+        pending = WORKER.submit(() -> compute(snapshots, mode, radius, jobGeneration));
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        lastSubmitTick = -1;
+        invalidate();
+    }
+
+    private static void invalidate() {
+        synchronized (PUBLISH_LOCK) {
+            ++generation;
+            fields = ImmutableMap.of();
+        }
+    }
+
+    private static void compute(List<WorldSnapshot> snapshots, AreaDifficultyMode mode, int radius, int jobGeneration) {
+        Map<RegistryKey<World>, Field> result;
+        try {
+            ImmutableMap.Builder<RegistryKey<World>, Field> builder = ImmutableMap.builder();
+            for (WorldSnapshot snapshot : snapshots) {
+                // Server stopped or the feature was turned off while we were working
+                if (generation != jobGeneration) return;
+                builder.put(snapshot.getDimension(), computeField(snapshot, mode, radius));
+            }
+            result = builder.build();
+        } catch (Exception ex) {
+            ScalingHealth.LOGGER.error("Failed to compute area difficulty field", ex);
+            result = ImmutableMap.of();
+        }
+
+        synchronized (PUBLISH_LOCK) {
+            if (generation == jobGeneration)
+                fields = result;
+        }
+    }
+
+    private static Field computeField(WorldSnapshot snapshot, AreaDifficultyMode mode, int radius) {
+        // Find the nearest player for every column in range of any player
+        PlayerSamples players = snapshot.getPlayers();
+        Long2IntMap nearest = new Long2IntOpenHashMap();
+        Long2IntMap nearestDistSq = new Long2IntOpenHashMap();
+        nearestDistSq.defaultReturnValue(Integer.MAX_VALUE);
+        for (int i = 0; i < players.size(); ++i) {
+            int cx = players.getX(i) >> 4;
+            int cz = players.getZ(i) >> 4;
+            for (int x = cx - radius; x <= cx + radius; ++x) {
+                for (int z = cz - radius; z <= cz + radius; ++z) {
+                    long column = ChunkPos.asLong(x, z);
+                    int distSq = (x - cx) * (x - cx) + (z - cz) * (z - cz);
+                    if (distSq < nearestDistSq.get(column)) {
+                        nearestDistSq.put(column, distSq);
+                        nearest.put(column, i);
+                    }
+                }
+            }
+        }
+
+        Long2FloatMap values = new Long2FloatOpenHashMap(nearest.size());
+        values.defaultReturnValue(Float.NaN);
+        BlockPos.Mutable center = new BlockPos.Mutable();
+        for (Long2IntMap.Entry entry : Long2IntMaps.fastIterable(nearest)) {
+            long column = entry.getLongKey();
+            center.setPos((ChunkPos.getX(column) << 4) + 8, players.getY(entry.getIntValue()), (ChunkPos.getZ(column) << 4) + 8);
+            values.put(column, (float) mode.getDifficulty(snapshot, center));
+        }
+        return new Field(mode, snapshot.getGameTime(), values);
+    }
+
+    private static final class Field {
+        private final AreaDifficultyMode mode;
+        private final long gameTime;
+        private final Long2FloatMap values;
+
+        private Field(AreaDifficultyMode mode, long gameTime, Long2FloatMap values) {
+            this.mode = mode;
+            this.gameTime = gameTime;
+            this.values = values;
+        }
+    }
+}
@@ -2,8 +2,6 @@ package net.silentchaos512.scalinghealth.utils;
 
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.MobEntity;
-import net.minecraft.entity.monster.IMob;
-import net.minecraft.entity.player.PlayerEntity;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
 import net.silentchaos512.scalinghealth.utils.config.EnabledFeatures;
 import net.silentchaos512.scalinghealth.utils.config.SHMobs;
@@ -31,9 +29,9 @@ public enum EntityGroup {
     }
 
     public static EntityGroup from(LivingEntity entity, boolean ignoreBlightStatus) {
-        if (entity instanceof PlayerEntity)
+        if (EntityTypeProfiles.isPlayer(entity))
             return PLAYER;
-        if (entity instanceof IMob) {
+        if (EntityTypeProfiles.isHostile(entity)) {
             if (!ignoreBlightStatus && SHMobs.isBlight((MobEntity) entity))
                 return BLIGHT;
             return HOSTILE;
@@ -0,0 +1,118 @@
+package net.silentchaos512.scalinghealth.utils;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.monster.IMob;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.silentchaos512.scalinghealth.resources.mechanics.DamageScalingMechanics;
+import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
+import net.silentchaos512.scalinghealth.resources.tags.EntityTags;
+
+import java.util.Arrays;
+
+/**
+ * Facts about an entity that only depend on its type, resolved once per type and stored as bit
+ * flags in an array indexed by entity type registry id. The table is thrown away when tags are
+ * reloaded or the damage scaling mechanics change.
+ * <p>
+ * Hostility comes from the {@link IMob} interface, which is implemented per entity class, so each
+ * slot is filled in from the first entity of that type that is looked up.
+ */
+public final class EntityTypeProfiles {
+    private static final byte RESOLVED = 1;
+    private static final byte DIFFICULTY_EXEMPT = 1 << 1;
+    private static final byte BLIGHT_EXEMPT = 1 << 2;
+    private static final byte BOSS = 1 << 3;
+    private static final byte HOSTILE = 1 << 4;
+    private static final byte PLAYER = 1 << 5;
+    private static final byte DAMAGE_BLACKLISTED = 1 << 6;
+
+    private static volatile Table table = new Table(-1, null);
+
+    private EntityTypeProfiles() {throw new IllegalAccessError("Utility class");}
+
+    public static boolean isDifficultyExempt(Entity entity) {
+        return has(entity, DIFFICULTY_EXEMPT);
+    }
+
+    public static boolean isBlightExempt(Entity entity) {
+        return has(entity, BLIGHT_EXEMPT);
+    }
+
+    public static boolean isBoss(Entity entity) {
+        return has(entity, BOSS);
+    }
+
+    public static boolean isHostile(Entity entity) {
+        return has(entity, HOSTILE);
+    }
+
+    public static boolean isPlayer(Entity entity) {
+        return has(entity, PLAYER);
+    }
+
+    public static boolean isDamageBlacklisted(Entity entity) {
+        return has(entity, DAMAGE_BLACKLISTED);
+    }
+
+    private static boolean has(Entity entity, byte flag) {
+        return (get(entity) & flag) != 0;
+    }
+
+    private static byte get(Entity entity) {
+        Table current = table;
+        int generation = SHMechanicListener.getTagGeneration();
+        // Capabilities are attached as entities are constructed, which can happen before mechanics are loaded
+        DamageScalingMechanics mechanics = SHMechanicListener.isLoaded() ? SHMechanicListener.getDamageScalingMechanics() : null;
+        if (current.tagGeneration != generation || current.mechanics != mechanics) {
+            current = new Table(generation, mechanics);
+            table = current;
+        }
+
+        int id = Registry.ENTITY_TYPE.getId(entity.getType());
+        if (id < 0)
+            return resolve(entity, mechanics);
+        if (id >= current.flags.length)
+            current.flags = Arrays.copyOf(current.flags, Math.max(id + 1, current.flags.length * 2));
+
+        byte flags = current.flags[id];
+        if (flags == 0) {
+            flags = resolve(entity, mechanics);
+            current.flags[id] = flags;
+        }
+        return flags;
+    }
+
+    private static byte resolve(Entity entity, DamageScalingMechanics mechanics) {
+        EntityType<?> type = entity.getType();
+        byte flags = RESOLVED;
+        if (EntityTags.DIFFICULTY_EXEMPT.contains(type))
+            flags |= DIFFICULTY_EXEMPT;
+        if (EntityTags.BLIGHT_EXEMPT.contains(type))
+            flags |= BLIGHT_EXEMPT;
+        if (EntityTags.BOSSES.contains(type))
+            flags |= BOSS;
+        if (entity instanceof IMob)
+            flags |= HOSTILE;
+        if (entity instanceof PlayerEntity)
+            flags |= PLAYER;
+
+        ResourceLocation name = type.getRegistryName();
+        if (name != null && mechanics != null && mechanics.modBlackList.contains(name.getNamespace()))
+            flags |= DAMAGE_BLACKLISTED;
+        return flags;
+    }
+
+    private static final class Table {
+        private final int tagGeneration;
+        private final DamageScalingMechanics mechanics;
+        private byte[] flags = new byte[Registry.ENTITY_TYPE.keySet().size()];
+
+        private Table(int tagGeneration, DamageScalingMechanics mechanics) {
+            this.tagGeneration = tagGeneration;
+            this.mechanics = mechanics;
+        }
+    }
+}
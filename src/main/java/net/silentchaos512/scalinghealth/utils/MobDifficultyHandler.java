@@ -4,9 +4,6 @@ import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.ai.attributes.AttributeModifier;
 import net.minecraft.entity.ai.attributes.Attributes;
 import net.minecraft.entity.ai.attributes.ModifiableAttributeInstance;
-import net.minecraft.entity.boss.WitherEntity;
-import net.minecraft.entity.boss.dragon.EnderDragonEntity;
-import net.minecraft.entity.monster.IMob;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TextFormatting;
@@ -15,15 +12,16 @@ import net.minecraftforge.fml.network.PacketDistributor;
 import net.silentchaos512.scalinghealth.ScalingHealth;
 import net.silentchaos512.scalinghealth.capability.IDifficultyAffected;
 import net.silentchaos512.scalinghealth.event.BlightHandler;
-import net.silentchaos512.scalinghealth.event.CommonEvents;
 import net.silentchaos512.scalinghealth.network.ClientBlightMessage;
 import net.silentchaos512.scalinghealth.network.Network;
+import net.silentchaos512.scalinghealth.resources.mechanics.MobMechanics;
 import net.silentchaos512.scalinghealth.utils.config.EnabledFeatures;
 import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
 import net.silentchaos512.scalinghealth.utils.config.SHMobs;
-import net.silentchaos512.scalinghealth.utils.mode.MobHealthMode;
 import net.silentchaos512.utils.MathUtils;
 
+import java.util.Optional;
+
 public final class MobDifficultyHandler {
     private MobDifficultyHandler() {}
 
@@ -48,7 +46,7 @@ public final class MobDifficultyHandler {
     public static void setEntityProperties(MobEntity entity, IDifficultyAffected data, boolean makeBlight) {
         if (!entity.isAlive()) return;
 
-        boolean isHostile = entity instanceof IMob;
+        boolean isHostile = EntityTypeProfiles.isHostile(entity);
 
         if (makeBlight) {
             data.setIsBlight(true);
@@ -56,8 +54,8 @@ public final class MobDifficultyHandler {
             Network.channel.send(PacketDistributor.TRACKING_ENTITY.with(()->entity), msg);
 
             BlightHandler.applyBlightPotionEffects(entity);
-            //TODO no good in code method for determining if an entity is a boss or not, switch to tag?
-            if(entity instanceof WitherEntity || entity instanceof EnderDragonEntity) {
+            BlightHandler.startEffectRefresh(entity);
+            if(EntityTypeProfiles.isBoss(entity)) {
                 ITextComponent blight = new TranslationTextComponent("misc.scalinghealth.blight", entity.getDisplayName()).deepCopy().mergeStyle(TextFormatting.DARK_PURPLE);
                 entity.setCustomName(blight);
             }
@@ -68,43 +66,70 @@ public final class MobDifficultyHandler {
         if(difficulty <= 0) return;
 
         // Random potion effect
-        SHMobs.getMobEffects().forEach(c -> c.tryApply(entity, difficulty));
-
-        if(EnabledFeatures.mobHpIncreaseEnabled()) {
-            double healthBoost = difficulty;
+        SHMobs.getMobEffectTable().tryApply(entity, difficulty);
 
-            double healthMultiplier = isHostile
-                    ? SHMobs.healthHostileMultiplier()
-                    : SHMobs.healthPassiveMultiplier();
+        Optional<MobMechanics.Tiers> tiers = SHMobs.getTiers();
+        if (tiers.isPresent()) {
+            setTieredProperties(entity, data, tiers.get(), difficulty, isHostile);
+            return;
+        }
 
-            healthBoost *= healthMultiplier;
+        if(EnabledFeatures.mobHpIncreaseEnabled()) {
+            // Apply extra health and damage.
+            double baseMaxHp = entity.getAttribute(Attributes.MAX_HEALTH).getBaseValue();
+            ModifierHandler.setMaxHealth(entity, getHealthBoost(difficulty, isHostile, data.isFromSpawner(), baseMaxHp), SHMobs.getHealthMode().getOp());
+        }
 
-            //TODO test... wtf was i doing here?
-            //healthBoost += 2 * healthMultiplier * difficulty * ScalingHealth.RANDOM.nextFloat();
+        // Increase attack damage.
+        if(EnabledFeatures.mobDamageIncreaseEnabled()) {
+            float diffIncrease = difficulty * ScalingHealth.RANDOM.nextFloat();
+            ModifierHandler.addAttackDamage(entity, getDamageBoost(diffIncrease), AttributeModifier.Operation.ADDITION);
+        }
+    }
 
-            if(CommonEvents.spawnerSpawns.contains(entity.getUniqueID())){
-                healthBoost *= SHMobs.spawnerModifier();
-                CommonEvents.spawnerSpawns.remove(entity.getUniqueID());
-            }
+    private static void setTieredProperties(MobEntity entity, IDifficultyAffected data, MobMechanics.Tiers tiers, float difficulty, boolean isHostile) {
+        int tier = tiers.getTier(difficulty);
 
-            // Apply extra health and damage.
-            MobHealthMode mode = SHMobs.getHealthMode();
-            ModifierHandler.setMaxHealth(entity, mode.getModifierHealth(healthBoost, entity.getAttribute(Attributes.MAX_HEALTH).getBaseValue()), mode.getOp());
+        if(EnabledFeatures.mobHpIncreaseEnabled()) {
+            double baseMaxHp = entity.getAttribute(Attributes.MAX_HEALTH).getBaseValue();
+            ModifierHandler.setMaxHealth(entity, tiers.getHealthModifier(tier, isHostile, data.isFromSpawner(), baseMaxHp));
         }
 
-        // Increase attack damage.
         if(EnabledFeatures.mobDamageIncreaseEnabled()) {
-            double damageBoost;
+            int step = ScalingHealth.RANDOM.nextInt(tiers.damageSteps);
+            ModifierHandler.addAttackDamage(entity, tiers.getDamageModifier(tier, step));
+        }
+    }
 
-            float diffIncrease = difficulty * ScalingHealth.RANDOM.nextFloat();
-            damageBoost = diffIncrease * SHMobs.damageBoostScale();
-            // Clamp the value so it doesn't go over the maximum config.
-            double max = SHMobs.maxDamageBoost();
-            if (max > 0f) {
-                damageBoost = MathHelper.clamp(damageBoost, 0, max);
-            }
+    /**
+     * Health modifier amount for the current health mode.
+     */
+    public static double getHealthBoost(double difficulty, boolean isHostile, boolean fromSpawner, double baseMaxHp) {
+        double healthMultiplier = isHostile
+                ? SHMobs.healthHostileMultiplier()
+                : SHMobs.healthPassiveMultiplier();
+
+        double healthBoost = difficulty * healthMultiplier;
+
+        //TODO test... wtf was i doing here?
+        //healthBoost += 2 * healthMultiplier * difficulty * ScalingHealth.RANDOM.nextFloat();
+
+        if(fromSpawner)
+            healthBoost *= SHMobs.spawnerModifier();
+
+        return SHMobs.getHealthMode().getModifierHealth(healthBoost, baseMaxHp);
+    }
 
-            ModifierHandler.addAttackDamage(entity, damageBoost, AttributeModifier.Operation.ADDITION);
+    /**
+     * Attack damage modifier amount for a random fraction of the mob's difficulty.
+     */
+    public static double getDamageBoost(double diffIncrease) {
+        double damageBoost = diffIncrease * SHMobs.damageBoostScale();
+        // Clamp the value so it doesn't go over the maximum config.
+        double max = SHMobs.maxDamageBoost();
+        if (max > 0f) {
+            damageBoost = MathHelper.clamp(damageBoost, 0, max);
         }
+        return damageBoost;
     }
 }
@@ -0,0 +1,132 @@
+package net.silentchaos512.scalinghealth.utils;
+
+import net.minecraft.entity.MobEntity;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+import net.silentchaos512.scalinghealth.capability.DifficultyAffectedCapability;
+import net.silentchaos512.scalinghealth.capability.IDifficultyAffected;
+import net.silentchaos512.scalinghealth.config.SHConfig;
+import net.silentchaos512.scalinghealth.event.DifficultyEvents;
+import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+
+/**
+ * Applies difficulty to mobs when they join a server world. Mobs are queued on join and the queue
+ * is drained at the end of each server tick, within the time budget set in the config. Processed
+ * mobs are never looked at again.
+ * <p>
+ * Mobs that are not ready yet (too young, or no players on an integrated server) are set aside and
+ * checked again later, waiting twice as long each time up to {@value #MAX_RETRY_DELAY} ticks. Mobs
+ * in chunks that are loaded but not ticking never get older, so they would otherwise be checked
+ * every tick for as long as the chunk stays loaded.
+ */
+@Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
+public final class MobProcessingQueue {
+    private static final int MAX_RETRY_DELAY = 40;
+
+    private static final Deque<Entry> QUEUE = new ArrayDeque<>();
+    private static final PriorityQueue<Entry> WAITING = new PriorityQueue<>(Comparator.comparingLong(e -> e.retryTick));
+
+    private static long tick;
+
+    private MobProcessingQueue() {throw new IllegalAccessError("Utility class");}
+
+    /**
+     * Number of mobs waiting to be processed, including mobs that are not ready yet.
+     */
+    public static int getQueueDepth() {
+        return QUEUE.size() + WAITING.size();
+    }
+
+    /**
+     * Number of mobs that are not ready to be processed yet.
+     */
+    public static int getWaitingCount() {
+        return WAITING.size();
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        if (!(event.getEntity() instanceof MobEntity) || !(event.getWorld() instanceof ServerWorld)) return;
+
+        MobEntity mob = (MobEntity) event.getEntity();
+        mob.getCapability(DifficultyAffectedCapability.INSTANCE).ifPresent(data -> {
+            if (!data.isProcessed())
+                QUEUE.add(new Entry(mob));
+        });
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        ++tick;
+        while (!WAITING.isEmpty() && WAITING.peek().retryTick <= tick)
+            QUEUE.add(WAITING.poll());
+        if (QUEUE.isEmpty()) return;
+
+        long budget = SHConfig.SERVER.mobProcessingBudget.get() * 1000L;
+        long start = System.nanoTime();
+        int processed = 0;
+
+        while (!QUEUE.isEmpty()) {
+            Entry entry = QUEUE.poll();
+            MobEntity mob = entry.mob;
+            if (!mob.isAlive() || !mob.isAddedToWorld()) continue;
+
+            IDifficultyAffected data = SHDifficulty.affected(mob);
+            if (data.isProcessed()) continue;
+
+            if (!isReady(mob)) {
+                entry.retryTick = tick + entry.retryDelay;
+                entry.retryDelay = Math.min(entry.retryDelay * 2, MAX_RETRY_DELAY);
+                WAITING.add(entry);
+                continue;
+            }
+
+            data.tick(mob);
+            ++processed;
+
+            if (budget > 0 && System.nanoTime() - start >= budget) break;
+        }
+
+        if (processed > 0 && ScalingHealth.LOGGER.isDebugEnabled() && SHConfig.SERVER.debugLogEntitySpawns.get()) {
+            ScalingHealth.LOGGER.debug(DifficultyEvents.MARKER, "Processed {} mobs in {} us, {} queued, {} not ready",
+                    processed, (System.nanoTime() - start) / 1000, QUEUE.size(), WAITING.size());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        QUEUE.clear();
+        WAITING.clear();
+        tick = 0;
+    }
+
+    private static boolean isReady(MobEntity mob) {
+        // Players need a small delay to connect on an integrated server
+        ServerWorld world = (ServerWorld) mob.world;
+        if (world.getPlayers().isEmpty() && !world.getServer().isDedicatedServer())
+            return false;
+        return mob.ticksExisted > 2;
+    }
+
+    private static final class Entry {
+        private final MobEntity mob;
+        private long retryTick;
+        private int retryDelay = 1;
+
+        private Entry(MobEntity mob) {
+            this.mob = mob;
+        }
+    }
+}
@@ -24,7 +24,7 @@ import net.minecraft.entity.ai.attributes.AttributeModifier;
 import net.minecraft.entity.ai.attributes.Attributes;
 import net.minecraft.entity.ai.attributes.ModifiableAttributeInstance;
 import net.silentchaos512.lib.util.EntityHelper;
-import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
+import net.silentchaos512.utils.MathUtils;
 
 import java.util.UUID;
 
@@ -36,17 +36,47 @@ public final class ModifierHandler {
 
     private ModifierHandler() { throw new IllegalAccessError("Utility class"); }
 
-    public static void setModifier(LivingEntity entity, Attribute attribute, UUID uuid, String name, double amount, AttributeModifier.Operation op) {
+    public static AttributeModifier healthModifier(double amount, AttributeModifier.Operation op) {
+        return new AttributeModifier(MODIFIER_ID_HEALTH, MODIFIER_NAME_HEALTH, amount, op);
+    }
+
+    public static AttributeModifier damageModifier(double amount, AttributeModifier.Operation op) {
+        return new AttributeModifier(MODIFIER_ID_DAMAGE, MODIFIER_NAME_DAMAGE, amount, op);
+    }
+
+    public static boolean setModifier(LivingEntity entity, Attribute attribute, UUID uuid, String name, double amount, AttributeModifier.Operation op) {
+        return setModifier(entity, attribute, new AttributeModifier(uuid, name, amount, op));
+    }
+
+    /**
+     * Replace the modifier with the same ID as {@code modifier}. Modifiers are immutable, so shared
+     * instances can be applied to any number of entities.
+     * <p>
+     * Nothing is done if an equal modifier is already applied, since every change marks the
+     * attribute dirty and has to be synced to tracking clients.
+     *
+     * @return True if the attribute was changed
+     */
+    public static boolean setModifier(LivingEntity entity, Attribute attribute, AttributeModifier modifier) {
         ModifiableAttributeInstance instance = entity.getAttribute(attribute);
-        if (instance == null) return;
-        AttributeModifier mod = instance.getModifier(uuid);
-        if (mod != null) instance.removeModifier(mod);
-        instance.applyPersistentModifier(new AttributeModifier(uuid, name, amount, op));
+        if (instance == null) return false;
+        AttributeModifier mod = instance.getModifier(modifier.getID());
+        if (mod != null) {
+            if (mod.getOperation() == modifier.getOperation() && MathUtils.doublesEqual(mod.getAmount(), modifier.getAmount()))
+                return false;
+            instance.removeModifier(mod);
+        }
+        instance.applyPersistentModifier(modifier);
+        return true;
     }
 
     public static void setMaxHealth(LivingEntity entity, double amount, AttributeModifier.Operation op) {
+        setMaxHealth(entity, healthModifier(amount, op));
+    }
+
+    public static void setMaxHealth(LivingEntity entity, AttributeModifier modifier) {
         double oldMax = entity.getMaxHealth();
-        setModifier(entity, Attributes.MAX_HEALTH, MODIFIER_ID_HEALTH, MODIFIER_NAME_HEALTH, amount, op);
+        if (!setModifier(entity, Attributes.MAX_HEALTH, modifier)) return;
         double newMax = entity.getMaxHealth();
 
         // Heal entity when increasing max health
@@ -58,10 +88,12 @@ public final class ModifierHandler {
         }
     }
 
-    @SuppressWarnings("ConstantConditions")
     public static void addAttackDamage(LivingEntity entity, double amount, AttributeModifier.Operation op) {
-        String modNamespace = entity.getType().getRegistryName().getNamespace();
-        if (!SHDifficulty.getDamageBlacklistedMods().contains(modNamespace))
-            setModifier(entity, Attributes.ATTACK_DAMAGE, MODIFIER_ID_DAMAGE, MODIFIER_NAME_DAMAGE, amount, op);
+        addAttackDamage(entity, damageModifier(amount, op));
+    }
+
+    public static void addAttackDamage(LivingEntity entity, AttributeModifier modifier) {
+        if (!EntityTypeProfiles.isDamageBlacklisted(entity))
+            setModifier(entity, Attributes.ATTACK_DAMAGE, modifier);
     }
 }
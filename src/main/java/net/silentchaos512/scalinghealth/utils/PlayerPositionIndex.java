@@ -0,0 +1,200 @@
+package net.silentchaos512.scalinghealth.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.vector.Vector3i;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a coarse grid of player positions for every server world, so radial player searches
+ * only have to look at the cells around the search center instead of every player in the world.
+ */
+@Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
+public final class PlayerPositionIndex {
+    // Cells are 64x64 block columns
+    private static final int CELL_SHIFT = 6;
+    // Players may have moved a little since the last refresh, so look slightly past the radius
+    private static final int QUERY_SLACK = 16;
+
+    private static final Map<RegistryKey<World>, Grid> GRIDS = new HashMap<>();
+
+    private PlayerPositionIndex() {throw new IllegalAccessError("Utility class");}
+
+    /**
+     * Add all players within {@code radius} blocks of {@code center} to {@code out}. A radius of
+     * zero or less matches every player in the world.
+     */
+    public static void collect(IWorld world, Vector3i center, long radius, List<? super PlayerEntity> out) {
+        query(world, center, radius, out::add);
+    }
+
+    /**
+     * Pass all players within {@code radius} blocks of {@code center} to {@code action}, without
+     * collecting them first. A radius of zero or less matches every player in the world.
+     */
+    public static void forEach(IWorld world, Vector3i center, long radius, Consumer<? super PlayerEntity> action) {
+        query(world, center, radius, action);
+    }
+
+    /**
+     * Count the players within {@code radius} blocks of {@code center}. A radius of zero or less
+     * matches every player in the world.
+     */
+    public static int count(IWorld world, Vector3i center, long radius) {
+        return query(world, center, radius, null);
+    }
+
+    private static int query(IWorld world, Vector3i center, long radius, @Nullable Consumer<? super PlayerEntity> out) {
+        List<? extends PlayerEntity> players = world.getPlayers();
+        if (radius <= 0) {
+            if (out != null) {
+                //noinspection ForLoopReplaceableByForEach
+                for (int i = 0; i < players.size(); ++i)
+                    out.accept(players.get(i));
+            }
+            return players.size();
+        }
+
+        Grid grid = world instanceof ServerWorld ? GRIDS.get(((ServerWorld) world).getDimensionKey()) : null;
+        if (grid == null || grid.isCheaperToScan(radius))
+            return scan(players, center, radius, out);
+        return grid.query(center, radius, out);
+    }
+
+    private static int scan(List<? extends PlayerEntity> players, Vector3i center, long radius, @Nullable Consumer<? super PlayerEntity> out) {
+        int count = 0;
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < players.size(); ++i) {
+            PlayerEntity player = players.get(i);
+            if (isInRange(player, center, radius)) {
+                if (out != null)
+                    out.accept(player);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isInRange(PlayerEntity player, Vector3i center, long radius) {
+        return player.getDistanceSq(center.getX(), center.getY(), center.getZ()) < (double) (radius * radius);
+    }
+
+    private static int cellCoord(double blockCoord) {
+        return (int) Math.floor(blockCoord) >> CELL_SHIFT;
+    }
+
+    private static Grid getOrCreate(ServerWorld world) {
+        return GRIDS.computeIfAbsent(world.getDimensionKey(), k -> new Grid());
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        if (event.getEntity() instanceof PlayerEntity && event.getWorld() instanceof ServerWorld)
+            getOrCreate((ServerWorld) event.getWorld()).update((PlayerEntity) event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+        if (event.getEntity() instanceof PlayerEntity && event.getWorld() instanceof ServerWorld) {
+            Grid grid = GRIDS.get(((ServerWorld) event.getWorld()).getDimensionKey());
+            if (grid != null)
+                grid.remove((PlayerEntity) event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.START || !(event.world instanceof ServerWorld)) return;
+
+        // Players move between world ticks (network handling), so refresh their cells first thing
+        ServerWorld world = (ServerWorld) event.world;
+        Grid grid = getOrCreate(world);
+        for (PlayerEntity player : world.getPlayers())
+            grid.update(player);
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerWorld)
+            GRIDS.remove(((ServerWorld) event.getWorld()).getDimensionKey());
+    }
+
+    private static final class Grid {
+        private final Long2ObjectMap<List<PlayerEntity>> cells = new Long2ObjectOpenHashMap<>();
+        private final Object2LongMap<PlayerEntity> cellOfPlayer = new Object2LongOpenHashMap<>();
+
+        private void update(PlayerEntity player) {
+            long cell = ChunkPos.asLong(cellCoord(player.getPosX()), cellCoord(player.getPosZ()));
+            if (cellOfPlayer.containsKey(player)) {
+                long oldCell = cellOfPlayer.getLong(player);
+                if (oldCell == cell) return;
+                removeFromCell(oldCell, player);
+            }
+
+            cellOfPlayer.put(player, cell);
+            List<PlayerEntity> list = cells.get(cell);
+            if (list == null) {
+                list = new ArrayList<>(2);
+                cells.put(cell, list);
+            }
+            list.add(player);
+        }
+
+        private void remove(PlayerEntity player) {
+            if (cellOfPlayer.containsKey(player))
+                removeFromCell(cellOfPlayer.removeLong(player), player);
+        }
+
+        private void removeFromCell(long cell, PlayerEntity player) {
+            List<PlayerEntity> list = cells.get(cell);
+            if (list == null) return;
+            list.remove(player);
+            if (list.isEmpty())
+                cells.remove(cell);
+        }
+
+        private boolean isCheaperToScan(long radius) {
+            long span = ((radius + QUERY_SLACK) >> CELL_SHIFT) * 2 + 2;
+            return span * span >= cellOfPlayer.size();
+        }
+
+        private int query(Vector3i center, long radius, @Nullable Consumer<? super PlayerEntity> out) {
+            long reach = radius + QUERY_SLACK;
+            int minX = cellCoord(center.getX() - reach);
+            int maxX = cellCoord(center.getX() + reach);
+            int minZ = cellCoord(center.getZ() - reach);
+            int maxZ = cellCoord(center.getZ() + reach);
+
+            int count = 0;
+            for (int x = minX; x <= maxX; ++x) {
+                for (int z = minZ; z <= maxZ; ++z) {
+                    List<PlayerEntity> list = cells.get(ChunkPos.asLong(x, z));
+                    if (list != null)
+                        count += scan(list, center, radius, out);
+                }
+            }
+            return count;
+        }
+    }
+}
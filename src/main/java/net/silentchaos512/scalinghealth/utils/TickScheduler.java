@@ -0,0 +1,191 @@
+package net.silentchaos512.scalinghealth.utils;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.silentchaos512.scalinghealth.ScalingHealth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Server side scheduler for periodic per-entity work, built on a hierarchical timing wheel. Tasks
+ * are bound to an entity and are cancelled when it leaves the world (unloaded, killed, changed
+ * dimension). Each tick only the tasks in the current slot are looked at, plus a cascade of a
+ * higher level slot every 64 ticks, so the cost depends on how much work is due rather than on how
+ * many entities are loaded.
+ * <p>
+ * The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots. A task {@code d} ticks away is
+ * kept on the lowest level that can hold it, and is moved down a level each time its slot on a
+ * higher level comes up.
+ */
+@Mod.EventBusSubscriber(modid = ScalingHealth.MOD_ID)
+public final class TickScheduler {
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    @SuppressWarnings("unchecked")
+    private static final List<Task>[][] WHEEL = new List[LEVELS][SLOTS];
+    private static final Int2ObjectMap<List<Task>> BY_ENTITY = new Int2ObjectOpenHashMap<>();
+
+    private static long now;
+
+    static {
+        for (List<Task>[] level : WHEEL)
+            for (int i = 0; i < SLOTS; ++i)
+                level[i] = new ArrayList<>();
+    }
+
+    private TickScheduler() {throw new IllegalAccessError("Utility class");}
+
+    /**
+     * Run {@code action} once, {@code delay} ticks from now.
+     */
+    public static <T extends Entity> Task schedule(T owner, int delay, Consumer<T> action) {
+        return schedule(owner, delay, 0, action);
+    }
+
+    /**
+     * Run {@code action} {@code delay} ticks from now, then every {@code period} ticks until the
+     * task is cancelled or the owner leaves the world. A period of zero runs the action once.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Entity> Task schedule(T owner, int delay, int period, Consumer<T> action) {
+        if (owner.world.isRemote)
+            throw new IllegalArgumentException("Tasks can only be scheduled for server side entities");
+
+        Task task = new Task(owner, (Consumer<Entity>) action, period);
+        task.due = now + Math.max(delay, 1);
+        BY_ENTITY.computeIfAbsent(owner.getEntityId(), k -> new ArrayList<>()).add(task);
+        insert(task);
+        return task;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        ++now;
+        // Higher levels first, so tasks can fall through several levels in the same tick
+        for (int level = LEVELS - 1; level > 0; --level) {
+            int shift = LEVEL_BITS * level;
+            if ((now & ((1L << shift) - 1)) == 0)
+                cascade(level, (int) (now >>> shift) & SLOT_MASK);
+        }
+
+        List<Task> slot = WHEEL[0][(int) now & SLOT_MASK];
+        if (slot.isEmpty()) return;
+
+        List<Task> due = new ArrayList<>(slot);
+        slot.clear();
+        for (Task task : due) {
+            if (task.cancelled) continue;
+
+            // Entities whose join was cancelled never leave the world
+            Entity owner = task.owner;
+            if (!owner.isAddedToWorld()) {
+                task.cancel();
+                continue;
+            }
+            task.action.accept(owner);
+            if (task.cancelled) continue;
+
+            if (task.period > 0) {
+                task.due = now + task.period;
+                insert(task);
+            } else {
+                task.cancel();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+        if (event.getWorld().isRemote()) return;
+
+        Entity entity = event.getEntity();
+        List<Task> tasks = BY_ENTITY.get(entity.getEntityId());
+        if (tasks == null) return;
+
+        // Copied, cancelling removes from the list. Tasks of another entity reusing the ID (a
+        // respawned player) are left alone.
+        for (Task task : new ArrayList<>(tasks)) {
+            if (task.owner == entity)
+                task.cancel();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        for (List<Task>[] level : WHEEL)
+            for (List<Task> slot : level)
+                slot.clear();
+        BY_ENTITY.clear();
+        now = 0;
+    }
+
+    private static void insert(Task task) {
+        long delta = task.due - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (LEVEL_BITS * (level + 1)))
+            ++level;
+        // Tasks past the range of the top level just cascade back into it until they are in range
+        WHEEL[level][(int) (task.due >>> (LEVEL_BITS * level)) & SLOT_MASK].add(task);
+    }
+
+    private static void cascade(int level, int index) {
+        List<Task> slot = WHEEL[level][index];
+        if (slot.isEmpty()) return;
+
+        List<Task> tasks = new ArrayList<>(slot);
+        slot.clear();
+        for (Task task : tasks) {
+            if (!task.cancelled)
+                insert(task);
+        }
+    }
+
+    public static final class Task {
+        private Entity owner;
+        private Consumer<Entity> action;
+        private final int period;
+        private long due;
+        private boolean cancelled;
+
+        private Task(Entity owner, Consumer<Entity> action, int period) {
+            this.owner = owner;
+            this.action = action;
+            this.period = period;
+        }
+
+        /**
+         * Stop the task from running again. It is dropped from the wheel when its slot comes up.
+         */
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+
+            List<Task> tasks = BY_ENTITY.get(owner.getEntityId());
+            if (tasks != null) {
+                tasks.remove(this);
+                if (tasks.isEmpty())
+                    BY_ENTITY.remove(owner.getEntityId());
+            }
+            // Don't keep the entity around until the slot is cleared
+            owner = null;
+            action = null;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
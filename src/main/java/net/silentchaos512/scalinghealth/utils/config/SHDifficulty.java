@@ -1,11 +1,9 @@
 package net.silentchaos512.scalinghealth.utils.config;
 
 import com.mojang.datafixers.util.Pair;
-import com.udojava.evalex.Expression;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.Tuple;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
@@ -13,35 +11,31 @@ import net.minecraft.util.math.vector.Vector3i;
 import net.minecraft.world.IWorld;
 import net.minecraft.world.World;
 import net.minecraftforge.common.capabilities.ICapabilityProvider;
-import net.silentchaos512.lib.util.MCMathUtils;
-import net.silentchaos512.scalinghealth.capability.DifficultyAffectedCapability;
-import net.silentchaos512.scalinghealth.capability.DifficultySourceCapability;
+import net.silentchaos512.scalinghealth.capability.CapabilityCache;
 import net.silentchaos512.scalinghealth.capability.IDifficultyAffected;
 import net.silentchaos512.scalinghealth.capability.IDifficultySource;
 import net.silentchaos512.scalinghealth.config.EvalVars;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
-import net.silentchaos512.scalinghealth.utils.EntityGroup;
+import net.silentchaos512.scalinghealth.utils.AreaDifficultyCache;
+import net.silentchaos512.scalinghealth.utils.AreaDifficultyField;
+import net.silentchaos512.scalinghealth.utils.PlayerPositionIndex;
 import net.silentchaos512.scalinghealth.utils.mode.AreaDifficultyMode;
 import net.silentchaos512.utils.MathUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class SHDifficulty {
     private SHDifficulty() {throw new IllegalAccessError("Utility class");}
 
     public static IDifficultyAffected affected(ICapabilityProvider entity) {
-        return entity.getCapability(DifficultyAffectedCapability.INSTANCE)
-                .orElseGet(DifficultyAffectedCapability::new);
+        return CapabilityCache.affected(entity);
     }
 
     public static IDifficultySource source(ICapabilityProvider source) {
-        return source.getCapability(DifficultySourceCapability.INSTANCE)
-                .orElseGet(DifficultySourceCapability::new);
+        return CapabilityCache.source(source);
     }
 
     public static void setSourceDifficulty(PlayerEntity player, double difficulty){
@@ -60,24 +54,32 @@ public final class SHDifficulty {
     }
 
     public static List<Pair<IDifficultySource, BlockPos>> positionedPlayerSources(IWorld world, Vector3i center, long radius) {
-        return playersInRange(world, center, radius)
-                .map(player -> Pair.of(source(player), player.getPosition()))
-                .collect(Collectors.toList());
+        List<Pair<IDifficultySource, BlockPos>> list = new ArrayList<>();
+        PlayerPositionIndex.forEach(world, center, radius, player -> list.add(Pair.of(source(player), player.getPosition())));
+        return list;
     }
 
     public static Collection<Tuple<BlockPos, IDifficultySource>> allPlayerSources(IWorld world, Vector3i center, long radius) {
         Collection<Tuple<BlockPos, IDifficultySource>> list = new ArrayList<>();
 
         // Get players
-        playersInRange(world, center, radius).forEach(player -> list.add(new Tuple<>(player.getPosition(), SHDifficulty.source(player))));
+        PlayerPositionIndex.forEach(world, center, radius, player -> list.add(new Tuple<>(player.getPosition(), SHDifficulty.source(player))));
         return list;
     }
 
+    /**
+     * Players within {@code radius} blocks of {@code center}, collected into a new list. Callers
+     * that only iterate or count should use {@link PlayerPositionIndex#forEach} or
+     * {@link #playerCountInRange} instead.
+     */
     public static Stream<? extends PlayerEntity> playersInRange(IWorld world, Vector3i center, long radius) {
-        if (radius <= 0)
-            return world.getPlayers().stream();
-        return world.getPlayers().stream()
-                .filter(p -> MCMathUtils.distanceSq(p, center) < (radius * radius));
+        List<PlayerEntity> players = new ArrayList<>();
+        PlayerPositionIndex.collect(world, center, radius, players);
+        return players.stream();
+    }
+
+    public static int playerCountInRange(IWorld world, Vector3i center, long radius) {
+        return PlayerPositionIndex.count(world, center, radius);
     }
 
     public static int groupSearchRadius() {
@@ -89,12 +91,35 @@ public final class SHDifficulty {
     }
 
     public static double areaDifficulty(World world, BlockPos pos, boolean groupBonus) {
-        return clamp(areaMode().getDifficulty(world, pos) *
+        if (!AreaDifficultyCache.canCache(world))
+            return computeAreaDifficulty(world, pos, groupBonus);
+
+        double cached = AreaDifficultyCache.get(world, pos, groupBonus);
+        if (!Double.isNaN(cached))
+            return cached;
+
+        double difficulty = computeAreaDifficulty(world, pos, groupBonus);
+        AreaDifficultyCache.put(world, pos, groupBonus, difficulty);
+        return difficulty;
+    }
+
+    private static double computeAreaDifficulty(World world, BlockPos pos, boolean groupBonus) {
+        return clamp(modeDifficulty(world, pos) *
                 locationMultiplier(world, pos) *
                 lunarMultiplier(world) *
                 (groupBonus ? groupMultiplier(world, pos) : 1));
     }
 
+    private static double modeDifficulty(World world, BlockPos pos) {
+        AreaDifficultyMode mode = areaMode();
+        if (AreaDifficultyCache.canCache(world) && AreaDifficultyField.isEnabled()) {
+            double precomputed = AreaDifficultyField.get(world, pos, mode);
+            if (!Double.isNaN(precomputed))
+                return precomputed;
+        }
+        return mode.getDifficulty(world, pos);
+    }
+
     public static double locationMultiplier(World world, BlockPos pos) {
         return SHMechanicListener.getDifficultyMechanics().multipliers.getScale(world, world.getBiome(pos));
     }
@@ -107,7 +132,7 @@ public final class SHDifficulty {
     }
 
     public static double groupMultiplier(World world, BlockPos pos) {
-        return EvalVars.apply(world, pos, null, SHMechanicListener.getDifficultyMechanics().groupBonus.get());
+        return EvalVars.apply(world, pos, null, SHMechanicListener.getDifficultyMechanics().groupBonus);
     }
 
     public static AreaDifficultyMode areaMode() {
@@ -143,38 +168,26 @@ public final class SHDifficulty {
     }
 
     public static double getDifficultyAfterDeath(PlayerEntity player) {
-        return EvalVars.apply(player, SHMechanicListener.getDifficultyMechanics().mutators.onPlayerDeath.get());
+        return EvalVars.apply(player, SHMechanicListener.getDifficultyMechanics().mutators.onPlayerDeath);
     }
 
     public static void applyKillMutator(LivingEntity killed, PlayerEntity killer) {
         //check if player, if it is, no other mutator can apply
         if (killed instanceof PlayerEntity) {
-            setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.onPlayerKilled.get()));
+            setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.onPlayerKilled));
             return;
         }
 
         //check if blight, continue even if it to apply the base mutator
         if (affected(killed).isBlight())
-            setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.onBlightKilled.get()));
-
-        //check for entity specific mutators first
-        for (Pair<List<ResourceLocation>, Supplier<Expression>> p : SHMechanicListener.getDifficultyMechanics().mutators.byEntity) {
-            if (p.getFirst().contains(killed.getType().getRegistryName())) {
-                setSourceDifficulty(killer, EvalVars.apply(killer, p.getSecond().get()));
-                return;
-            }
-        }
+            setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.onBlightKilled));
 
-        //finally fall back to categorising entity between peaceful and hostile
-        if (EntityGroup.from(killed, true) == EntityGroup.PEACEFUL) {
-            setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.onPeacefulKilled.get()));
-        } else {
-            setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.onHostileKilled.get()));
-        }
+        //entity specific mutators first, falling back to categorising entity between peaceful and hostile
+        setSourceDifficulty(killer, EvalVars.apply(killer, SHMechanicListener.getDifficultyMechanics().mutators.getOnKilled(killed)));
     }
 
     public static double diffOnPlayerSleep(PlayerEntity entity){
-        return EvalVars.apply(entity, SHMechanicListener.getDifficultyMechanics().mutators.onPlayerSleep.get());
+        return EvalVars.apply(entity, SHMechanicListener.getDifficultyMechanics().mutators.onPlayerSleep);
     }
 
     public static boolean sleepWarningMessage(){
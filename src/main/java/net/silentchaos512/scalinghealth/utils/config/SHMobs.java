@@ -1,18 +1,20 @@
 package net.silentchaos512.scalinghealth.utils.config;
 
 import net.minecraft.entity.MobEntity;
+import net.silentchaos512.scalinghealth.resources.mechanics.MobMechanics;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
-import net.silentchaos512.scalinghealth.resources.tags.EntityTags;
+import net.silentchaos512.scalinghealth.utils.EntityTypeProfiles;
 import net.silentchaos512.scalinghealth.utils.mode.MobHealthMode;
 import net.silentchaos512.scalinghealth.utils.serialization.DifficultyMobEffect;
 
 import java.util.List;
+import java.util.Optional;
 
 public final class SHMobs {
     private SHMobs() { throw new IllegalAccessError("Utility class"); }
 
     public static boolean allowsDifficultyChanges(MobEntity entity) {
-        return !EntityTags.DIFFICULTY_EXEMPT.contains(entity.getType());
+        return !EntityTypeProfiles.isDifficultyExempt(entity);
     }
 
     public static double blightChance() {
@@ -20,7 +22,7 @@ public final class SHMobs {
     }
 
     public static boolean canBecomeBlight(MobEntity entity) {
-        return EnabledFeatures.blightsEnabled() && !EntityTags.BLIGHT_EXEMPT.contains(entity.getType());
+        return EnabledFeatures.blightsEnabled() && !EntityTypeProfiles.isBlightExempt(entity);
     }
 
     public static boolean isBlight(MobEntity entity) {
@@ -47,6 +49,10 @@ public final class SHMobs {
         return SHMechanicListener.getMobMechanics().mobEffects;
     }
 
+    public static DifficultyMobEffect.Table getMobEffectTable() {
+        return SHMechanicListener.getMobMechanics().mobEffectTable;
+    }
+
     public static double passivePotionChance(){
         return SHMechanicListener.getMobMechanics().generic.peacefulPotionChance;
     }
@@ -59,6 +65,10 @@ public final class SHMobs {
         return SHMechanicListener.getMobMechanics().mode;
     }
 
+    public static Optional<MobMechanics.Tiers> getTiers() {
+        return SHMechanicListener.getMobMechanics().tiers;
+    }
+
     public static double spawnerModifier(){
         return SHMechanicListener.getMobMechanics().generic.spawnerModifier;
     }
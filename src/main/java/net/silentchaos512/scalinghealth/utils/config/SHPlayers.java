@@ -1,8 +1,8 @@
 package net.silentchaos512.scalinghealth.utils.config;
 
 import net.minecraft.entity.player.PlayerEntity;
+import net.silentchaos512.scalinghealth.capability.CapabilityCache;
 import net.silentchaos512.scalinghealth.capability.IPlayerData;
-import net.silentchaos512.scalinghealth.capability.PlayerDataCapability;
 import net.silentchaos512.scalinghealth.config.EvalVars;
 import net.silentchaos512.scalinghealth.resources.mechanics.SHMechanicListener;
 import net.silentchaos512.utils.MathUtils;
@@ -15,7 +15,10 @@ public final class SHPlayers {
    private SHPlayers() {throw new IllegalAccessError("Utility class");}
 
    public static IPlayerData getPlayerData(PlayerEntity entity){
-      return entity.getCapability(PlayerDataCapability.INSTANCE).orElseThrow(() -> new IllegalStateException("Could not access capability"));
+      IPlayerData data = CapabilityCache.playerData(entity);
+      if (data == null)
+         throw new IllegalStateException("Could not access capability");
+      return data;
    }
 
    public static int startingHealth() {
@@ -69,7 +72,7 @@ public final class SHPlayers {
    }
 
    public static int getCrystalsAfterDeath(PlayerEntity player){
-      float healthDifference =  player.getMaxHealth() - MathUtils.clamp((int) EvalVars.apply(player, SHMechanicListener.getPlayerMechanics().healthOnDeath.get()), minHealth(), maxHealth());
+      float healthDifference =  player.getMaxHealth() - MathUtils.clamp((int) EvalVars.apply(player, SHMechanicListener.getPlayerMechanics().healthOnDeath), minHealth(), maxHealth());
       int crystalDifference = (int) healthDifference / (2 * SHItems.heartCrystalIncreaseAmount());
       return getPlayerData(player).getHeartCrystals() - crystalDifference;
    }
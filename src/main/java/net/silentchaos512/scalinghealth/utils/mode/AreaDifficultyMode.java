@@ -24,6 +24,12 @@ public abstract class AreaDifficultyMode {
 
     public abstract double getDifficulty(World world, BlockPos pos);
 
+    /**
+     * Same as {@link #getDifficulty(World, BlockPos)}, but only reads from the snapshot. May be
+     * called off the server thread.
+     */
+    public abstract double getDifficulty(WorldSnapshot snapshot, BlockPos pos);
+
     public abstract String getName();
 
     public abstract static class RadialMode extends AreaDifficultyMode {
@@ -1,18 +1,12 @@
 package net.silentchaos512.scalinghealth.utils.mode;
 
-import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
-import net.minecraft.util.Tuple;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.silentchaos512.scalinghealth.capability.DifficultySourceCapability;
-import net.silentchaos512.scalinghealth.capability.IDifficultySource;
-import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
 import net.silentchaos512.scalinghealth.utils.serialization.SerializationUtils;
 
-import java.util.List;
-import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
 
 public class AreaDifficultyModes {
@@ -33,27 +27,43 @@ public class AreaDifficultyModes {
 
         @Override
         public double getDifficulty(World world, BlockPos pos) {
-            return this.weighted ? getWeightedAverage(world, pos) : getAverage(world, pos);
+            return compute(PlayerSamples.gather(world, pos, getRadius()), pos);
+        }
+
+        @Override
+        public double getDifficulty(WorldSnapshot snapshot, BlockPos pos) {
+            return compute(PlayerSamples.gather(snapshot, pos, getRadius()), pos);
+        }
+
+        private double compute(PlayerSamples samples, BlockPos pos) {
+            return this.weighted ? getWeightedAverage(samples, pos) : getAverage(samples);
         }
 
         public double getAverage(World world, BlockPos pos) {
-            List<Pair<IDifficultySource, BlockPos>> sources = SHDifficulty.positionedPlayerSources(world, pos, getRadius());
-            if (sources.isEmpty())
-                return 0;
-            return sources.stream()
-                    .map(p -> p.getFirst().getDifficulty())
-                    .reduce(Float::sum)
-                    .orElse(0F) / sources.size();
+            return getAverage(PlayerSamples.gather(world, pos, getRadius()));
         }
 
         public double getWeightedAverage(World world, BlockPos pos) {
+            return getWeightedAverage(PlayerSamples.gather(world, pos, getRadius()), pos);
+        }
+
+        private static double getAverage(PlayerSamples samples) {
+            if (samples.isEmpty())
+                return 0;
+            float total = 0;
+            for (int i = 0; i < samples.size(); ++i)
+                total += samples.getDifficulty(i);
+            return total / samples.size();
+        }
+
+        private double getWeightedAverage(PlayerSamples samples, BlockPos pos) {
             double total = 0;
             int totalWeight = 0;
             int rSq = getRadius() * getRadius();
-            for (Pair<IDifficultySource, BlockPos> p : SHDifficulty.positionedPlayerSources(world, pos, getRadius())) {
-                int distanceSq = (int) pos.distanceSq(p.getSecond());
+            for (int i = 0; i < samples.size(); ++i) {
+                int distanceSq = (int) pos.distanceSq(samples.getX(i), samples.getY(i), samples.getZ(i), true);
                 int weight = 1 - distanceSq / rSq;
-                total += weight * p.getFirst().getDifficulty();
+                total += weight * samples.getDifficulty(i);
                 totalWeight += weight;
             }
             return totalWeight <= 0 ? 0 : total / totalWeight;
@@ -73,20 +83,28 @@ public class AreaDifficultyModes {
                 ).apply(inst, Extrema::new)
         );
 
-        private final BinaryOperator<Double> extremaFct;
         private final boolean min;
 
         public Extrema(int radius, boolean min) {
             super(radius);
             this.min = min;
-            this.extremaFct = min ? Math::min : Math::max;
         }
 
         @Override
         public double getDifficulty(World world, BlockPos pos) {
+            return compute(PlayerSamples.gather(world, pos, getRadius()));
+        }
+
+        @Override
+        public double getDifficulty(WorldSnapshot snapshot, BlockPos pos) {
+            return compute(PlayerSamples.gather(snapshot, pos, getRadius()));
+        }
+
+        private double compute(PlayerSamples samples) {
             double extrema = 0;
-            for (Tuple<BlockPos, IDifficultySource> tuple : SHDifficulty.allPlayerSources(world, pos, getRadius())) {
-                extrema = extremaFct.apply((double)tuple.getB().getDifficulty(), extrema);
+            for (int i = 0; i < samples.size(); ++i) {
+                double difficulty = samples.getDifficulty(i);
+                extrema = this.min ? Math.min(difficulty, extrema) : Math.max(difficulty, extrema);
             }
             return extrema;
         }
@@ -125,6 +143,11 @@ public class AreaDifficultyModes {
             return Math.sqrt(pos.distanceSq(center.get())) * this.distanceFactor;
         }
 
+        @Override
+        public double getDifficulty(WorldSnapshot snapshot, BlockPos pos) {
+            return Math.sqrt(pos.distanceSq(fromOrigin ? ADJUSTED_ZERO : snapshot.getSpawn())) * this.distanceFactor;
+        }
+
         @Override
         public String getName() {
             return "distance";
@@ -152,6 +175,11 @@ public class AreaDifficultyModes {
             return time.getDifficulty(world, pos) + distance.getDifficulty(world, pos);
         }
 
+        @Override
+        public double getDifficulty(WorldSnapshot snapshot, BlockPos pos) {
+            return time.getDifficulty(snapshot, pos) + distance.getDifficulty(snapshot, pos);
+        }
+
         @Override
         public String getName() {
             return "distance_and_time";
@@ -165,8 +193,12 @@ public class AreaDifficultyModes {
 
         @Override
         public double getDifficulty(World world, BlockPos pos) {
-            return DifficultySourceCapability.getOverworldCap()
-                    .map(IDifficultySource::getDifficulty).orElse(0f);
+            return DifficultySourceCapability.getOverworldDifficulty();
+        }
+
+        @Override
+        public double getDifficulty(WorldSnapshot snapshot, BlockPos pos) {
+            return snapshot.getServerDifficulty();
         }
 
         @Override
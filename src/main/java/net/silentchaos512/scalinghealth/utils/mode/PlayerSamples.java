@@ -0,0 +1,132 @@
+package net.silentchaos512.scalinghealth.utils.mode;
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3i;
+import net.minecraft.world.IWorld;
+import net.silentchaos512.scalinghealth.utils.PlayerPositionIndex;
+import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reusable buffer of player positions and difficulties, stored in primitive arrays. Area
+ * difficulty modes read from this instead of building lists of pairs, so evaluating them does
+ * not allocate once the buffer has grown to fit the player count.
+ */
+public final class PlayerSamples implements Consumer<PlayerEntity> {
+    private static final ThreadLocal<PlayerSamples> SCRATCH = ThreadLocal.withInitial(PlayerSamples::new);
+
+    private int size;
+    private int[] x = new int[16];
+    private int[] y = new int[16];
+    private int[] z = new int[16];
+    private float[] difficulty = new float[16];
+
+    /**
+     * Fill this thread's scratch buffer with the players in range of {@code center}. The returned
+     * buffer is only valid until the next call on the same thread.
+     */
+    public static PlayerSamples gather(IWorld world, Vector3i center, long radius) {
+        PlayerSamples samples = SCRATCH.get();
+        samples.clear();
+        // The buffer itself is the visitor, so there is no list or lambda per call
+        PlayerPositionIndex.forEach(world, center, radius, samples);
+        return samples;
+    }
+
+    /**
+     * Fill this thread's scratch buffer with the players of {@code snapshot} in range of
+     * {@code center}. Works the same as {@link #gather(IWorld, Vector3i, long)}, but reads from a
+     * snapshot instead of the world. Only the cells around {@code center} are looked at, unless
+     * the snapshot has so few players that scanning all of them is cheaper.
+     */
+    public static PlayerSamples gather(WorldSnapshot snapshot, Vector3i center, long radius) {
+        PlayerSamples samples = SCRATCH.get();
+        samples.clear();
+
+        PlayerSamples source = snapshot.getPlayers();
+        long span = (radius >> WorldSnapshot.CELL_SHIFT) * 2 + 2;
+        if (radius <= 0 || span * span >= source.size) {
+            for (int i = 0; i < source.size; ++i)
+                samples.addIfInRange(source, i, center, radius);
+            return samples;
+        }
+
+        int minX = (int) (center.getX() - radius) >> WorldSnapshot.CELL_SHIFT;
+        int maxX = (int) (center.getX() + radius) >> WorldSnapshot.CELL_SHIFT;
+        int minZ = (int) (center.getZ() - radius) >> WorldSnapshot.CELL_SHIFT;
+        int maxZ = (int) (center.getZ() + radius) >> WorldSnapshot.CELL_SHIFT;
+        for (int x = minX; x <= maxX; ++x) {
+            for (int z = minZ; z <= maxZ; ++z) {
+                IntList cell = snapshot.getCell(x, z);
+                if (cell == null) continue;
+                for (int j = 0; j < cell.size(); ++j)
+                    samples.addIfInRange(source, cell.getInt(j), center, radius);
+            }
+        }
+        return samples;
+    }
+
+    private void addIfInRange(PlayerSamples source, int i, Vector3i center, long radius) {
+        long dx = source.x[i] - center.getX();
+        long dy = source.y[i] - center.getY();
+        long dz = source.z[i] - center.getZ();
+        if (radius <= 0 || dx * dx + dy * dy + dz * dz < radius * radius)
+            add(source.x[i], source.y[i], source.z[i], source.difficulty[i]);
+    }
+
+    /**
+     * Add the current position and difficulty of {@code player}.
+     */
+    @Override
+    public void accept(PlayerEntity player) {
+        add(MathHelper.floor(player.getPosX()), MathHelper.floor(player.getPosY()), MathHelper.floor(player.getPosZ()),
+                SHDifficulty.source(player).getDifficulty());
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int px, int py, int pz, float playerDifficulty) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            difficulty = Arrays.copyOf(difficulty, capacity);
+        }
+        x[size] = px;
+        y[size] = py;
+        z[size] = pz;
+        difficulty[size] = playerDifficulty;
+        ++size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getX(int index) {
+        return x[index];
+    }
+
+    public int getY(int index) {
+        return y[index];
+    }
+
+    public int getZ(int index) {
+        return z[index];
+    }
+
+    public float getDifficulty(int index) {
+        return difficulty[index];
+    }
+}
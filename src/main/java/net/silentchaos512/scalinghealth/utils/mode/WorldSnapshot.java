@@ -0,0 +1,103 @@
+package net.silentchaos512.scalinghealth.utils.mode;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.storage.IWorldInfo;
+import net.silentchaos512.scalinghealth.capability.DifficultySourceCapability;
+import net.silentchaos512.scalinghealth.utils.config.SHDifficulty;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Everything an {@link AreaDifficultyMode} needs to know about a world, copied out of it on the
+ * server thread. A snapshot is never modified after it is created, so it can be handed to another
+ * thread without touching the world again.
+ */
+public final class WorldSnapshot {
+    // Cells are 64x64 block columns, the same as PlayerPositionIndex
+    static final int CELL_SHIFT = 6;
+
+    private final RegistryKey<World> dimension;
+    private final long gameTime;
+    private final BlockPos spawn;
+    private final float serverDifficulty;
+    private final PlayerSamples players;
+    // Indices into players, bucketed by cell
+    private final Long2ObjectMap<IntList> cells = new Long2ObjectOpenHashMap<>();
+
+    WorldSnapshot(RegistryKey<World> dimension, long gameTime, BlockPos spawn, float serverDifficulty, PlayerSamples players) {
+        this.dimension = dimension;
+        this.gameTime = gameTime;
+        this.spawn = spawn;
+        this.serverDifficulty = serverDifficulty;
+        this.players = players;
+
+        for (int i = 0; i < players.size(); ++i) {
+            long cell = ChunkPos.asLong(players.getX(i) >> CELL_SHIFT, players.getZ(i) >> CELL_SHIFT);
+            IntList list = cells.get(cell);
+            if (list == null) {
+                list = new IntArrayList(2);
+                cells.put(cell, list);
+            }
+            list.add(i);
+        }
+    }
+
+    public static WorldSnapshot capture(ServerWorld world) {
+        PlayerSamples players = new PlayerSamples();
+        List<? extends PlayerEntity> list = world.getPlayers();
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < list.size(); ++i) {
+            PlayerEntity player = list.get(i);
+            players.add(MathHelper.floor(player.getPosX()), MathHelper.floor(player.getPosY()), MathHelper.floor(player.getPosZ()),
+                    SHDifficulty.source(player).getDifficulty());
+        }
+
+        IWorldInfo info = world.getWorldInfo();
+        return new WorldSnapshot(world.getDimensionKey(), world.getGameTime(),
+                new BlockPos(info.getSpawnX(), info.getSpawnY(), info.getSpawnZ()),
+                DifficultySourceCapability.getOverworldDifficulty(), players);
+    }
+
+    public RegistryKey<World> getDimension() {
+        return dimension;
+    }
+
+    public long getGameTime() {
+        return gameTime;
+    }
+
+    public BlockPos getSpawn() {
+        return spawn;
+    }
+
+    public float getServerDifficulty() {
+        return serverDifficulty;
+    }
+
+    /**
+     * All players of the world at the time of the snapshot. Must not be modified.
+     */
+    public PlayerSamples getPlayers() {
+        return players;
+    }
+
+    /**
+     * Indices into {@link #getPlayers()} of the players in the given cell, or null if there are
+     * none. Must not be modified.
+     */
+    @Nullable
+    IntList getCell(int cellX, int cellZ) {
+        return cells.get(ChunkPos.asLong(cellX, cellZ));
+    }
+}
@@ -16,6 +16,9 @@ import net.silentchaos512.utils.MathUtils;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 
+import java.util.Comparator;
+import java.util.List;
+
 public class DifficultyMobEffect {
     private static final Marker MARKER = MarkerManager.getMarker("DifficultyMobEffects");
 
@@ -59,4 +62,68 @@ public class DifficultyMobEffect {
         if (MathUtils.tryPercentage(EntityGroup.from(e).getPotionChance()))
             apply(e, difficulty);
     }
+
+    /**
+     * A list of effects sorted by {@link #minDifficulty}, built when mechanics are loaded.
+     * {@link #tryApply(LivingEntity, double)} gives every eligible effect the same independent
+     * chance as {@link DifficultyMobEffect#tryApply}, but finds the eligible effects with a binary
+     * search and jumps between successful rolls by sampling the gap geometrically. This takes about
+     * one random draw per applied effect, however long the list is.
+     */
+    public static class Table {
+        private final DifficultyMobEffect[] effects;
+        private final int[] minDifficulties;
+
+        public Table(List<DifficultyMobEffect> effects) {
+            this.effects = effects.stream()
+                    .sorted(Comparator.comparingInt(e -> e.minDifficulty))
+                    .toArray(DifficultyMobEffect[]::new);
+            this.minDifficulties = new int[this.effects.length];
+            for (int i = 0; i < this.effects.length; ++i)
+                this.minDifficulties[i] = this.effects[i].minDifficulty;
+        }
+
+        public void tryApply(LivingEntity e, double difficulty) {
+            int eligible = countEligible(difficulty);
+            if (eligible == 0) return;
+
+            double chance = EntityGroup.from(e).getPotionChance();
+            if (chance <= 0) return;
+            if (chance >= 1) {
+                for (int i = 0; i < eligible; ++i)
+                    effects[i].apply(e, difficulty);
+                return;
+            }
+
+            double logMiss = Math.log(1 - chance);
+            if (logMiss == 0) return;
+            for (long i = nextGap(logMiss); i < eligible; i += 1 + nextGap(logMiss))
+                effects[(int) i].apply(e, difficulty);
+        }
+
+        /**
+         * Number of effects with a min difficulty of at most {@code difficulty}, which are the
+         * first effects in the table.
+         */
+        private int countEligible(double difficulty) {
+            int low = 0;
+            int high = minDifficulties.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (minDifficulties[mid] <= difficulty)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * Number of failed rolls before the next successful one.
+         */
+        private static long nextGap(double logMiss) {
+            // Capped so skipping past the end of the table can't overflow
+            return (long) Math.min(Math.log(1 - ScalingHealth.RANDOM.nextDouble()) / logMiss, Integer.MAX_VALUE);
+        }
+    }
 }
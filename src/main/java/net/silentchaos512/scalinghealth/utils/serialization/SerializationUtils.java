@@ -6,16 +6,16 @@ import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.udojava.evalex.Expression;
 import net.minecraft.entity.ai.attributes.AttributeModifier;
+import net.silentchaos512.scalinghealth.config.CompiledExpression;
 import net.silentchaos512.scalinghealth.config.EvalVars;
 
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class SerializationUtils {
-    public static final Codec<Supplier<Expression>> EXPRESSION_CODEC = Codec.STRING.comapFlatMap(s ->
+    public static final Codec<CompiledExpression> EXPRESSION_CODEC = Codec.STRING.comapFlatMap(s ->
             {
                 if(s.isEmpty())
                     return DataResult.error("Empty Expression");
@@ -26,8 +26,8 @@ public class SerializationUtils {
                 } catch (Exception e) {
                     return DataResult.error("Could not parse Expression: " + e);
                 }
-                return DataResult.success(() -> new Expression(s));
-            }, e -> e.get().getExpression());
+                return DataResult.success(CompiledExpression.compile(s));
+            }, CompiledExpression::getSource);
 
     public static final Codec<AttributeModifier.Operation> ATTRIBUTE_OPERATION_CODEC = Codec.STRING
             .comapFlatMap(s -> {
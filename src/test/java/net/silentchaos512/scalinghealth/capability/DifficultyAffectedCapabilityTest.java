@@ -0,0 +1,102 @@
+package net.silentchaos512.scalinghealth.capability;
+
+import net.minecraft.nbt.CompoundNBT;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the saved state of difficulty-affected mobs survives a save and load, and that data
+ * saved before the processed flag existed is migrated.
+ */
+public class DifficultyAffectedCapabilityTest {
+    @Test
+    public void roundTripKeepsAllFields() {
+        DifficultyAffectedCapability original = new DifficultyAffectedCapability();
+        original.forceDifficulty(42.5f);
+        original.setIsBlight(true);
+        original.setProcessed(true);
+        original.setFromSpawner(true);
+
+        CompoundNBT nbt = original.serializeNBT();
+        assertEquals(2, nbt.getInt("Version"));
+
+        DifficultyAffectedCapability loaded = load(nbt);
+        assertEquals(42.5f, loaded.getDifficulty());
+        assertTrue(loaded.isBlight());
+        assertTrue(loaded.isProcessed());
+        assertTrue(loaded.isFromSpawner());
+    }
+
+    @Test
+    public void roundTripKeepsUnprocessedMobsUnprocessed() {
+        DifficultyAffectedCapability original = new DifficultyAffectedCapability();
+        original.forceDifficulty(10);
+
+        DifficultyAffectedCapability loaded = load(original.serializeNBT());
+        assertEquals(10f, loaded.getDifficulty());
+        assertFalse(loaded.isBlight());
+        assertFalse(loaded.isProcessed());
+        assertFalse(loaded.isFromSpawner());
+    }
+
+    @Test
+    public void legacyMobWithDifficultyIsProcessed() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putBoolean("Blight", false);
+        nbt.putFloat("Difficulty", 12.5f);
+
+        DifficultyAffectedCapability loaded = load(nbt);
+        assertEquals(12.5f, loaded.getDifficulty());
+        assertTrue(loaded.isProcessed());
+    }
+
+    @Test
+    public void legacyBlightIsProcessed() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putBoolean("Blight", true);
+        nbt.putFloat("Difficulty", 0);
+
+        DifficultyAffectedCapability loaded = load(nbt);
+        assertTrue(loaded.isBlight());
+        assertTrue(loaded.isProcessed());
+    }
+
+    @Test
+    public void legacyMobWithoutDifficultyIsNotProcessed() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putBoolean("Blight", false);
+        nbt.putFloat("Difficulty", 0);
+
+        assertFalse(load(nbt).isProcessed());
+        assertFalse(load(new CompoundNBT()).isProcessed());
+    }
+
+    @Test
+    public void versionedProcessedFlagWins() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putBoolean("Blight", true);
+        nbt.putFloat("Difficulty", 30);
+        nbt.putBoolean("Processed", false);
+        nbt.putInt("Version", 1);
+
+        assertFalse(load(nbt).isProcessed());
+    }
+
+    @Test
+    public void spawnerFlagIsOnlyReadFromVersionTwo() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putBoolean("Spawner", true);
+        nbt.putInt("Version", 1);
+        assertFalse(load(nbt).isFromSpawner());
+
+        nbt.putInt("Version", 2);
+        assertTrue(load(nbt).isFromSpawner());
+    }
+
+    private static DifficultyAffectedCapability load(CompoundNBT nbt) {
+        DifficultyAffectedCapability capability = new DifficultyAffectedCapability();
+        capability.deserializeNBT(nbt);
+        return capability;
+    }
+}
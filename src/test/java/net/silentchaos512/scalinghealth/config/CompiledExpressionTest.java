@@ -0,0 +1,175 @@
+package net.silentchaos512.scalinghealth.config;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.udojava.evalex.Expression;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Evaluates formulas through both {@link CompiledExpression} and EvalEx and checks that they
+ * agree. EvalEx computes with {@link java.math.MathContext#DECIMAL32}, so results only have to
+ * match to about seven significant digits.
+ */
+public class CompiledExpressionTest {
+    private static final double TOLERANCE = 1e-6;
+
+    private static final String[] BUNDLED_MECHANICS = {
+            "/data/scalinghealth/sh_mechanics/difficulty.json",
+            "/data/scalinghealth/sh_mechanics/player.json",
+    };
+    private static final Set<String> FORMULA_KEYS = new HashSet<>(Arrays.asList(
+            "groupBonus", "setOnDeath", "onBlightKilled", "onHostileKilled", "onPeacefulKilled",
+            "onPlayerKilled", "onPlayerDeath", "onPlayerSleep", "onKilled"));
+
+    // Indexed by EvalVars ordinal: health, maxHealth, food, difficulty, maxDifficulty, areaDifficulty, areaPlayerCount
+    private static final double[][] VARIABLE_SETS = {
+            {1, 1, 1, 1, 1, 1, 1},
+            {20, 20, 20, 0, 250, 0, 1},
+            {7.5, 40, 3, 123.456789, 250, 87.25, 4},
+            {0.5, 2, 0, 249.99, 250, 312.125, 17},
+    };
+
+    @Test
+    public void bundledFormulasMatchEvalEx() throws Exception {
+        List<String> formulas = new ArrayList<>();
+        for (String path : BUNDLED_MECHANICS) {
+            try (InputStream in = CompiledExpressionTest.class.getResourceAsStream(path)) {
+                assertNotNull(in, "Missing " + path);
+                try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                    collectFormulas(new JsonParser().parse(reader), null, formulas);
+                }
+            }
+        }
+        assertFalse(formulas.isEmpty(), "No formulas found in the bundled mechanics");
+
+        for (String formula : formulas)
+            for (double[] vars : VARIABLE_SETS)
+                assertMatches(formula, vars);
+    }
+
+    @Test
+    public void precedenceMatchesEvalEx() {
+        assertMatches("2 + 3 * 4");
+        assertMatches("(2 + 3) * 4");
+        assertMatches("10 - 4 - 3");
+        assertMatches("100 / 10 / 4");
+        assertMatches("2 * 3 % 4");
+        assertMatches("2 * 3 ^ 2");
+        assertMatches("1 + 2 > 2 && 3 < 4");
+        assertMatches("1 < 2 == 1");
+        assertMatches("0 || 1 && 0");
+        assertMatches("1 + 0.05 * (areaPlayerCount - 1)", VARIABLE_SETS[2]);
+        assertMatches("difficulty * 0.5 + maxHealth / 4 - food", VARIABLE_SETS[2]);
+    }
+
+    @Test
+    public void unaryMinusMatchesEvalEx() {
+        assertMatches("-2");
+        assertMatches("-2 ^ 2");
+        assertMatches("-(2 ^ 2)");
+        assertMatches("2 * -3");
+        assertMatches("3 - -difficulty", VARIABLE_SETS[2]);
+        assertMatches("-difficulty + 1", VARIABLE_SETS[2]);
+    }
+
+    @Test
+    public void powerIsRightAssociative() {
+        assertMatches("2 ^ 3 ^ 2");
+        assertMatches("(2 ^ 3) ^ 2");
+        assertEquals(512.0, eval("2 ^ 3 ^ 2"));
+    }
+
+    @Test
+    public void functionsMatchEvalEx() {
+        for (double[] vars : VARIABLE_SETS) {
+            assertMatches("IF(difficulty > 10, difficulty * 2, difficulty / 2)", vars);
+            assertMatches("MAX(1, difficulty - 5, maxHealth / 2)", vars);
+            assertMatches("MIN(maxDifficulty, areaDifficulty * 1.5)", vars);
+            assertMatches("ABS(health - maxHealth)", vars);
+            assertMatches("FLOOR(areaDifficulty / 3) + CEILING(difficulty / 7)", vars);
+            assertMatches("SQRT(maxHealth)", vars);
+        }
+    }
+
+    @Test
+    public void roundIsHalfEvenOnTheDecimalValue() {
+        assertMatches("ROUND(2.675, 2)");
+        assertEquals(2.68, eval("ROUND(2.675, 2)"));
+        assertMatches("ROUND(2.5, 0)");
+        assertMatches("ROUND(3.5, 0)");
+        assertMatches("ROUND(-1.005, 2)");
+        assertMatches("ROUND(difficulty, 2)", VARIABLE_SETS[2]);
+        assertMatches("ROUND(difficulty, 0)", new double[]{1, 1, 1, 0.5, 1, 1, 1});
+        assertMatches("ROUND(difficulty, 1)", new double[]{1, 1, 1, 0.25, 1, 1, 1});
+    }
+
+    @Test
+    public void divisionByZeroFailsLikeEvalEx() {
+        double[] noFood = VARIABLE_SETS[3];
+        assertBothThrow("1 / 0", noFood);
+        assertBothThrow("difficulty / food", noFood);
+        assertBothThrow("0 / food", new double[]{1, 1, 0, 0, 1, 1, 1});
+        assertBothThrow("difficulty % food", noFood);
+        assertBothThrow("1 + maxHealth / (areaPlayerCount - 17)", noFood);
+    }
+
+    private static void collectFormulas(JsonElement element, String key, List<String> formulas) {
+        if (element.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : ((JsonObject) element).entrySet())
+                collectFormulas(entry.getValue(), entry.getKey(), formulas);
+        } else if (element.isJsonArray()) {
+            for (JsonElement child : (JsonArray) element)
+                collectFormulas(child, key, formulas);
+        } else if (FORMULA_KEYS.contains(key) && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString()) {
+            formulas.add(element.getAsString());
+        }
+    }
+
+    private static void assertMatches(String formula) {
+        assertMatches(formula, VARIABLE_SETS[0]);
+    }
+
+    private static void assertMatches(String formula, double[] vars) {
+        CompiledExpression compiled = CompiledExpression.compile(formula);
+        assertTrue(compiled.isCompiled(), () -> "'" + formula + "' fell back to EvalEx");
+
+        double expected = evalEx(formula, vars);
+        double actual = compiled.eval(slot -> vars[slot]);
+        assertEquals(expected, actual, Math.max(1, Math.abs(expected)) * TOLERANCE,
+                () -> "'" + formula + "' with " + Arrays.toString(vars));
+    }
+
+    private static void assertBothThrow(String formula, double[] vars) {
+        assertThrows(ArithmeticException.class, () -> evalEx(formula, vars), () -> "EvalEx: '" + formula + "'");
+        CompiledExpression compiled = CompiledExpression.compile(formula);
+        assertTrue(compiled.isCompiled(), () -> "'" + formula + "' fell back to EvalEx");
+        assertThrows(ArithmeticException.class, () -> compiled.eval(slot -> vars[slot]), () -> "Compiled: '" + formula + "'");
+    }
+
+    private static double eval(String formula) {
+        return CompiledExpression.compile(formula).eval(slot -> VARIABLE_SETS[0][slot]);
+    }
+
+    private static double evalEx(String formula, double[] vars) {
+        Expression expression = new Expression(formula);
+        for (EvalVars var : EvalVars.values())
+            expression.setVariable(var.varName(), BigDecimal.valueOf(vars[var.ordinal()]));
+        return expression.eval().doubleValue();
+    }
+}
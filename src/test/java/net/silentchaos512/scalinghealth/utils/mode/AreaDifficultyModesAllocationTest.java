@@ -0,0 +1,108 @@
+package net.silentchaos512.scalinghealth.utils.mode;
+
+import com.sun.management.ThreadMXBean;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that evaluating the area difficulty modes does not allocate, by reading the allocation
+ * counter of the current thread around a batch of warmed up calls.
+ */
+public class AreaDifficultyModesAllocationTest {
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 10_000;
+
+    private static ThreadMXBean threads;
+    private static WorldSnapshot snapshot;
+    private static BlockPos pos;
+
+    // Keeps the JIT from dropping the calls
+    private static double sink;
+
+    @BeforeAll
+    public static void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof ThreadMXBean, "Thread allocation counter not available");
+        threads = (ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Thread allocation counter not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // More players than the initial scratch capacity, so growing the buffer is covered by the warmup
+        PlayerSamples players = new PlayerSamples();
+        for (int i = 0; i < 40; ++i)
+            players.add(i * 7 - 120, 64 + i % 5, 90 - i * 5, i * 3.5f);
+        snapshot = new WorldSnapshot(null, 0, new BlockPos(10, 70, -20), 42.5f, players);
+        pos = new BlockPos(5, 65, 3);
+    }
+
+    @Test
+    public void averageDoesNotAllocate() {
+        assertNoAllocation(new AreaDifficultyModes.Average(128, false));
+    }
+
+    @Test
+    public void weightedAverageDoesNotAllocate() {
+        assertNoAllocation(new AreaDifficultyModes.Average(128, true));
+    }
+
+    @Test
+    public void minimumDoesNotAllocate() {
+        assertNoAllocation(new AreaDifficultyModes.Extrema(128, true));
+    }
+
+    @Test
+    public void maximumDoesNotAllocate() {
+        assertNoAllocation(new AreaDifficultyModes.Extrema(128, false));
+    }
+
+    @Test
+    public void distanceDoesNotAllocate() {
+        assertNoAllocation(new AreaDifficultyModes.Distance(0.0025, false));
+        assertNoAllocation(new AreaDifficultyModes.Distance(0.0025, true));
+    }
+
+    @Test
+    public void distanceAndTimeDoesNotAllocate() {
+        assertNoAllocation(new AreaDifficultyModes.DistanceAndTime(
+                new AreaDifficultyModes.Average(256, true),
+                new AreaDifficultyModes.Distance(0.0025, false)));
+    }
+
+    @Test
+    public void serverWideDoesNotAllocate() {
+        assertNoAllocation(AreaDifficultyModes.ServerWide.INSTANCE);
+    }
+
+    private static void assertNoAllocation(AreaDifficultyMode mode) {
+        run(mode, WARMUP_CALLS);
+
+        long thread = Thread.currentThread().getId();
+        // Reading the counter may allocate itself, measure that with an empty batch first
+        long overhead = allocatedBytes(thread);
+        overhead = allocatedBytes(thread) - overhead;
+
+        long before = allocatedBytes(thread);
+        run(mode, MEASURED_CALLS);
+        long allocated = allocatedBytes(thread) - before - overhead;
+
+        assertEquals(0, allocated / MEASURED_CALLS, () -> mode.getName() + " allocated " + allocated
+                + " bytes over " + MEASURED_CALLS + " calls");
+    }
+
+    private static void run(AreaDifficultyMode mode, int calls) {
+        double total = 0;
+        for (int i = 0; i < calls; ++i)
+            total += mode.getDifficulty(snapshot, pos);
+        sink += total;
+    }
+
+    private static long allocatedBytes(long thread) {
+        return threads.getThreadAllocatedBytes(thread);
+    }
+}